@@ -0,0 +1,45 @@
+package Bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, then summarises search throughput in millions of
+ * characters per second.
+ * <br>Accepts the usual JMH command line, e.g. <code>SearchBenchmark.throughput -p textSize=1048576</code>.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)  // reports allocation rate per benchmark
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.printf("%-12s %-8s %8s %12s %12s%n", "engine", "alphabet", "pattern", "text", "Mchar/s");
+        for (RunResult result : results) {
+            if (!result.getParams().getBenchmark().endsWith("SearchBenchmark.throughput")) continue;
+
+            // searches per second, each of which reads the whole text; textSize counts characters, not bytes
+            long textSize = Long.parseLong(result.getParams().getParam("textSize"));
+            double mcharsPerSecond = result.getPrimaryResult().getScore() * textSize / 1e6;
+
+            System.out.printf("%-12s %-8s %8s %12d %12.1f%n",
+                    result.getParams().getParam("engine"),
+                    result.getParams().getParam("alphabet"),
+                    result.getParams().getParam("pattLength"),
+                    textSize,
+                    mcharsPerSecond);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package Bench;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates reproducible benchmark texts and patterns over alphabets of different sizes.
+ */
+public final class Corpus {
+    public enum Alphabet { BINARY, DNA, ENGLISH, UNICODE }
+
+    // English letter frequencies (per mille), with space as the most common symbol
+    private static final String ENGLISH_LETTERS = " etaoinshrdlcumwfgypbvkjxqz";
+    private static final int[] ENGLISH_WEIGHTS =
+            { 180, 102, 75, 67, 62, 58, 55, 51, 49, 49, 35, 33, 23, 23, 20, 20, 18, 17, 16, 16, 12, 8, 6, 1, 1, 1, 1 };
+
+    private Corpus() {  }
+
+    /**
+     * @param alphabet symbols to draw from
+     * @param length number of characters
+     * @param seed random seed, so runs are comparable
+     * @return random text over the alphabet
+     */
+    public static String text(Alphabet alphabet, int length, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        char[] chars = new char[length];
+
+        int total = 0;
+        for (int w : ENGLISH_WEIGHTS) total += w;
+
+        for (int i = 0; i < length; i++) {
+            chars[i] = switch (alphabet) {
+                case BINARY -> (char) ('0' + random.nextInt(2));
+                case DNA -> "ACGT".charAt(random.nextInt(4));
+                case ENGLISH -> {
+                    int r = random.nextInt(total);
+                    int k = 0;
+                    while (r >= ENGLISH_WEIGHTS[k]) r -= ENGLISH_WEIGHTS[k++];
+                    yield ENGLISH_LETTERS.charAt(k);
+                }
+                // anywhere in the basic multilingual plane below the surrogates
+                case UNICODE -> (char) (0x20 + random.nextInt(Character.MIN_SURROGATE - 0x20));
+            };
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param text text to take the pattern from
+     * @param length number of characters, at most the length of the text
+     * @param seed random seed, so runs are comparable
+     * @return a substring of the text, so the pattern occurs at least once
+     */
+    public static String pattern(String text, int length, long seed) {
+        int start = new SplittableRandom(seed).nextInt(text.length() - length + 1);
+        return text.substring(start, start + length);
+    }
+}
@@ -0,0 +1,47 @@
+package Bench;
+
+import Algorithm.BoyerMoore;
+import Algorithm.CharIntMap;
+import Algorithm.KMP;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building each preprocessing table, bypassing the pattern cache.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreprocessBenchmark {
+    @Param({ "BINARY", "DNA", "ENGLISH", "UNICODE" })
+    public Corpus.Alphabet alphabet;
+
+    @Param({ "1", "4", "16", "64", "256", "1024" })
+    public int pattLength;
+
+    private String patt;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        patt = Corpus.pattern(Corpus.text(alphabet, 1 << 16, 42), pattLength, 7);
+    }
+
+    @Benchmark
+    public int[] partialMatchTable() {
+        return KMP.partialMatchTable(patt);
+    }
+
+    @Benchmark
+    public int[] goodSuffix() {
+        return BoyerMoore.goodSuffix(patt);
+    }
+
+    @Benchmark
+    public CharIntMap badChar() {
+        return BoyerMoore.badCharTable(patt);
+    }
+}
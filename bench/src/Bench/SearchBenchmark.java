@@ -0,0 +1,75 @@
+package Bench;
+
+import Algorithm.BoyerMoore;
+import Algorithm.KMP;
+import Algorithm.SearchAlgorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts every match of a pattern in a text, for each engine and the JDK <code>String.indexOf</code> baseline.
+ * <br><code>throughput</code> is scored in searches per second, which {@link BenchmarkMain} converts to millions of characters per second,
+ * and <code>latency</code> in microseconds per search.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+    public enum Engine { KMP, BOYER_MOORE, INDEX_OF }
+
+    @Param({ "KMP", "BOYER_MOORE", "INDEX_OF" })
+    public Engine engine;
+
+    @Param({ "BINARY", "DNA", "ENGLISH", "UNICODE" })
+    public Corpus.Alphabet alphabet;
+
+    @Param({ "1", "4", "16", "64", "256", "1024" })
+    public int pattLength;
+
+    // 1K, 1M and 64M characters; 1G (-p textSize=1073741824) is opt-in, as every trial then builds a 2GB text
+    @Param({ "1024", "1048576", "67108864" })
+    public int textSize;
+
+    private String text;
+    private String patt;
+    private SearchAlgorithm alg;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        text = Corpus.text(alphabet, textSize, 42);
+        patt = Corpus.pattern(text, pattLength, 7);
+        alg = switch (engine) {
+            case KMP -> new KMP();
+            case BOYER_MOORE -> new BoyerMoore();
+            case INDEX_OF -> null;
+        };
+        if (alg != null) {
+            alg.setText(text);
+            alg.setPatt(patt);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int throughput() {
+        return search();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int latency() {
+        return search();
+    }
+
+    private int search() {
+        if (alg != null) return alg.count();
+
+        int count = 0;
+        for (int i = text.indexOf(patt); i >= 0; i = text.indexOf(patt, i + 1)) count++;
+        return count;
+    }
+}
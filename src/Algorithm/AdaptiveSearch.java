@@ -0,0 +1,179 @@
+package Algorithm;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Search that picks the engine best suited to each text and pattern, then delegates to it.
+ * <ul>
+ *     <li>Patterns of up to {@value ShortPatternSearch#MAX_LENGTH} characters use
+ *     <code>ShortPatternSearch</code>, since table building would cost more than it saves.</li>
+ *     <li>Low entropy text (binary, DNA) with a short pattern uses KMP, because Boyer-Moore's jumps
+ *     there are rarely longer than a few characters.</li>
+ *     <li>Everything else uses Boyer-Moore, in its worst case linear mode if the pattern is periodic.</li>
+ * </ul>
+ * The text is judged from an evenly spaced sample, so choosing is cheap however long the text is.
+ */
+public class AdaptiveSearch implements SearchAlgorithm {
+    public enum Choice { SHORT_PATTERN, KMP, BOYER_MOORE }
+
+    static final int SAMPLE_SIZE = 4096;
+    static final double LOW_ENTROPY_BITS = 2.5;  // DNA is 2 bits per character, English text over 4
+    static final int LONG_PATTERN = 16;          // KMP only pays off against patterns shorter than this
+
+    private final KMP kmp = new KMP();
+    private final BoyerMoore boyerMoore = new BoyerMoore();
+    private final ShortPatternSearch shortPattern = new ShortPatternSearch();
+
+    private CharSequence text = "";
+    private String patt = "";
+    private Choice choice = Choice.SHORT_PATTERN;
+    private SearchAlgorithm alg = shortPattern;
+
+    @Override
+    public boolean ready() {
+        return alg.ready();
+    }
+
+    @Override
+    public State state() {
+        return alg.state();
+    }
+
+    @Override
+    public @NotNull CharSequence text() {
+        return text;
+    }
+
+    @Override
+    public @NotNull String patt() {
+        return patt;
+    }
+
+    @Override
+    public void setText(CharSequence s) {
+        text = s;
+        choose();
+    }
+
+    @Override
+    public void setPatt(String s) {
+        patt = s;
+        choose();
+    }
+
+    /**
+     * @return the engine chosen for the current text and pattern
+     */
+    public Choice choice() {
+        return choice;
+    }
+
+    @Override
+    public int pattOffset() {
+        return alg.pattOffset();
+    }
+
+    @Override
+    public @NotNull MatchInfo step() {
+        return alg.step();
+    }
+
+    @Override
+    public int findFirst(int from) {
+        return alg.findFirst(from);
+    }
+
+    @Override
+    public int @NotNull [] findAll() {
+        return alg.findAll();
+    }
+
+    @Override
+    public int count() {
+        return alg.count();
+    }
+
+    @Override
+    public void setStats(@Nullable SearchStats stats) {
+        kmp.setStats(stats);
+        boyerMoore.setStats(stats);
+        shortPattern.setStats(stats);
+    }
+
+    @Override
+    public @Nullable SearchStats stats() {
+        return alg.stats();
+    }
+
+    /**
+     * Pick an engine for the current text and pattern, and hand both to it
+     */
+    private void choose() {
+        if (patt.length() <= ShortPatternSearch.MAX_LENGTH) {
+            choice = Choice.SHORT_PATTERN;
+            alg = shortPattern;
+        } else if (engineFor(text, patt.length()) == Engine.KMP) {
+            choice = Choice.KMP;
+            alg = kmp;
+        } else {
+            choice = Choice.BOYER_MOORE;
+            alg = boyerMoore;
+            // a pattern overlapping itself by at least half lets plain Boyer-Moore re-compare text repeatedly
+            int[] goodSuffix = CompiledPattern.of(patt).goodSuffix();
+            int period = goodSuffix[patt.length() - 1] - patt.length() + 1;
+            boyerMoore.setWorstCaseLinear(period <= patt.length() / 2);
+        }
+
+        alg.setText(text);
+        alg.setPatt(patt);
+    }
+
+    /**
+     * Choose between KMP and Boyer-Moore by the same rule as for longer patterns here, for searches outside
+     * the step-by-step API: KMP for a short pattern in low entropy text, otherwise Boyer-Moore
+     * @param text text to be searched, or a sample of it
+     * @param pattLength length of the pattern, in the same units as the text
+     */
+    public static Engine engineFor(CharSequence text, int pattLength) {
+        return pattLength < LONG_PATTERN && sampleEntropy(text) < LOW_ENTROPY_BITS ? Engine.KMP : Engine.BOYER_MOORE;
+    }
+
+    /**
+     * Same as {@link #engineFor(CharSequence, int)}, for a search over bytes such as <code>ByteSearch</code>
+     * @param text array holding the text, or a sample of it
+     * @param offset index of the first byte of the text
+     * @param length number of bytes in the text
+     * @param pattLength length of the pattern in bytes
+     */
+    public static Engine engineFor(byte[] text, int offset, int length, int pattLength) {
+        // each byte is judged as a character 0-255, as the byte searches build their tables
+        return engineFor(new Latin1Text(text, offset, length), pattLength);
+    }
+
+    /**
+     * Estimate the Shannon entropy of the text from an evenly spaced sample of its characters
+     * @param s text to sample
+     * @return bits per character
+     */
+    static double sampleEntropy(CharSequence s) {
+        if (s.isEmpty()) return 0;
+
+        int n = Math.min(s.length(), SAMPLE_SIZE);
+        char[] sample = new char[n];
+        for (int i = 0; i < n; i++) sample[i] = s.charAt((int) ((long) i * s.length() / n));
+        Arrays.sort(sample);
+
+        // equal characters are now in runs, each run gives the frequency of one character
+        double entropy = 0;
+        for (int start = 0, end; start < n; start = end) {
+            end = start + 1;
+            while (end < n && sample[end] == sample[start]) end++;
+            double p = (double) (end - start) / n;
+            entropy -= p * Math.log(p) / Math.log(2);
+        }
+        return entropy;
+    }
+}
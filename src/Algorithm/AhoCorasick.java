@@ -0,0 +1,369 @@
+package Algorithm;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick multi-pattern string search algorithm.
+ * <br>Generalises the KMP partial match table into failure links over a trie of every keyword, so all
+ * keywords are found in a single pass over the text. The trie is stored as a complete transition table
+ * in one flat <code>int[]</code>, indexed by state and by a compressed character class.
+ * <br>The pattern string holds the keywords separated by {@value #PATT_SEPARATOR}.
+ */
+public class AhoCorasick implements SearchAlgorithm {
+    public static final char PATT_SEPARATOR = '|';
+
+    private CharSequence text = "";
+    private String patt = "";
+    private String[] patterns = new String[0];
+
+    private CharIntMap charClass;  // character to class id, 0 for characters in no keyword
+    private int classes;           // number of character classes, including class 0
+    private int[] delta;           // transition table, delta[state * classes + class] -> state
+    private int[] parent;          // parent of each state in the trie, -1 for the root
+    private int[] depth;           // length of the keyword prefix each state represents
+    private int[] fail;            // failure link: state for the longest proper suffix that is in the trie
+    private int[] outLink;         // nearest state along the failure links that ends a keyword, or -1
+    private int[] output;          // first keyword ending at each state, or -1
+    private int[] sameOutput;      // next keyword with the same string as each keyword, or -1
+    private int[] prefixOf;        // a keyword that passes through each state
+    private int maxLength;         // length of the longest keyword
+
+    private int k = 0;      // position of current character in text
+    private int s = 0;      // current automaton state
+    private int shown = 0;  // keyword currently lined up against the text
+    private int pattOffset = 0;
+    private MatchInfo lastMatch = new MatchInfo(0, 0, false);
+
+    private SearchStats stats = null;
+
+    /**
+     * Callback receiving each keyword hit
+     */
+    @FunctionalInterface
+    public interface HitConsumer {
+        /**
+         * @param pattId index of the keyword in {@link #patterns()}
+         * @param offset index of the text at which the keyword starts
+         */
+        void hit(int pattId, int offset);
+    }
+
+    /**
+     * A single keyword hit
+     * @param pattId index of the keyword in {@link #patterns()}
+     * @param offset index of the text at which the keyword starts
+     */
+    public record Hit(int pattId, int offset) {  }
+
+    @Override
+    public boolean ready() {
+        return !(text.isEmpty() || patterns.length == 0) && state() == State.IN_PROGRESS;
+    }
+
+    @Override
+    public State state() {
+        if (text.isEmpty() || patterns.length == 0) return State.NO_MATCH;
+        if (lastMatch.match() && (output[s] != -1 || outLink[s] != -1)) return State.MATCH_FOUND;
+        if (k >= text.length()) return State.NO_MATCH;
+        return State.IN_PROGRESS;
+    }
+
+    @Override
+    public @NotNull CharSequence text() {
+        return text;
+    }
+
+    @Override
+    public @NotNull String patt() {
+        return patt;
+    }
+
+    @Override
+    public void setText(CharSequence s) {
+        text = s;
+        restart();
+    }
+
+    /**
+     * Set the keywords to search for
+     * @param s keywords separated by {@value #PATT_SEPARATOR}, empty keywords are ignored
+     */
+    @Override
+    public void setPatt(String s) {
+        List<String> keywords = new ArrayList<>();
+        int start = 0;
+        for (int end = s.indexOf(PATT_SEPARATOR); end >= 0; end = s.indexOf(PATT_SEPARATOR, start)) {
+            if (end > start) keywords.add(s.substring(start, end));
+            start = end + 1;
+        }
+        if (start < s.length()) keywords.add(s.substring(start));
+
+        patt = s;
+        build(keywords.toArray(new String[0]));
+        restart();
+    }
+
+    /**
+     * Set the keywords to search for, which may contain {@value #PATT_SEPARATOR}
+     * @param keywords keywords to search for, empty keywords are ignored
+     */
+    public void setPatterns(List<String> keywords) {
+        patt = String.join(String.valueOf(PATT_SEPARATOR), keywords);
+        build(keywords.stream().filter(w -> !w.isEmpty()).toArray(String[]::new));
+        restart();
+    }
+
+    /**
+     * @return the keywords being searched for, indexed by pattern id
+     */
+    public List<String> patterns() {
+        return List.of(patterns);
+    }
+
+    @Override
+    public int pattOffset() {
+        return pattOffset;
+    }
+
+    /**
+     * @return id of the keyword currently lined up against the text, or the keyword found on a match
+     */
+    public int shownPattern() {
+        return shown;
+    }
+
+    @Override
+    public @NotNull MatchInfo step() {
+        // line up a keyword through the current state, at the position it would start in the text
+        shown = prefixOf[s];
+        pattOffset = k - depth[s];
+        MatchInfo ret = new MatchInfo(k, depth[s], false);
+
+        if (k < text.length()) {
+            if (stats != null) stats.compared(1);
+            int next = delta[s * classes + charClass.get(text.charAt(k))];
+            // match: there is a trie edge for this character
+            if (next != 0 && parent[next] == s) {
+                ret = new MatchInfo(k, depth[s], true);
+                s = next;
+                k ++;
+            }
+            // mismatch at the root, move forward
+            else if (s == 0) {
+                if (stats != null) stats.shifted(1);
+                k ++;
+            }
+            // mismatch, follow the failure link and compare the same character again
+            else {
+                if (stats != null) stats.shifted(depth[s] - depth[fail[s]]);
+                s = fail[s];
+            }
+        }
+
+        lastMatch = ret;
+        if (state() == State.MATCH_FOUND) {
+            shown = output[s] != -1 ? output[s] : output[outLink[s]];
+            pattOffset = k - patterns[shown].length();
+        }
+        return ret;
+    }
+
+    private void restart() {
+        k = 0;
+        s = 0;
+        shown = 0;
+        pattOffset = 0;
+        lastMatch = new MatchInfo(0, 0, false);
+    }
+
+    @Override
+    public int findFirst(int from) {
+        if (text.isEmpty() || patterns.length == 0) return -1;
+
+        int best = -1;
+        int state = 0;
+        int i;
+        for (i = Math.max(0, from); i < text.length(); i ++) {
+            // no keyword ending from here on can start before the best hit so far
+            if (best != -1 && i - maxLength + 1 > best) break;
+
+            state = delta[state * classes + charClass.get(text.charAt(i))];
+            for (int t = output[state] != -1 ? state : outLink[state]; t != -1; t = outLink[t]) {
+                int start = i - depth[t] + 1;
+                if (best == -1 || start < best) best = start;
+            }
+        }
+        if (stats != null) stats.compared(i - Math.max(0, from));
+        return best;
+    }
+
+    @Override
+    public void setStats(@Nullable SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public @Nullable SearchStats stats() {
+        return stats;
+    }
+
+    @Override
+    public int @NotNull [] findAll() {
+        Matches out = new Matches();
+        search((pattId, offset) -> out.add(offset));
+        int[] offsets = out.toArray();
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    @Override
+    public int count() {
+        if (text.isEmpty() || patterns.length == 0) return 0;
+
+        int count = 0;
+        int state = 0;
+        for (int i = 0; i < text.length(); i ++) {
+            state = delta[state * classes + charClass.get(text.charAt(i))];
+            for (int t = output[state] != -1 ? state : outLink[state]; t != -1; t = outLink[t])
+                for (int id = output[t]; id != -1; id = sameOutput[id]) count ++;
+        }
+        // the bulk search makes exactly one table lookup per character
+        if (stats != null) stats.compared(text.length());
+        return count;
+    }
+
+    /**
+     * @return every keyword hit, ordered by the position at which it ends in the text
+     */
+    public List<Hit> findHits() {
+        List<Hit> hits = new ArrayList<>();
+        search((pattId, offset) -> hits.add(new Hit(pattId, offset)));
+        return hits;
+    }
+
+    /**
+     * Report every keyword hit in a single pass over the text, ordered by the position at which it ends
+     * @param consumer receives each hit
+     */
+    public void search(HitConsumer consumer) {
+        if (text.isEmpty() || patterns.length == 0) return;
+
+        int state = 0;
+        for (int i = 0; i < text.length(); i ++) {
+            state = delta[state * classes + charClass.get(text.charAt(i))];
+            for (int t = output[state] != -1 ? state : outLink[state]; t != -1; t = outLink[t])
+                for (int id = output[t]; id != -1; id = sameOutput[id]) consumer.hit(id, i - depth[t] + 1);
+        }
+        if (stats != null) stats.compared(text.length());
+    }
+
+    /**
+     * The failure table for one keyword, analogous to the KMP partial match table
+     * @param pattId keyword to generate the table for
+     * @return for each index of the keyword, the length of the prefix (of any keyword) to fall back to
+     *         on a mismatch there, or -1 at the start of the keyword
+     */
+    public int[] failureTable(int pattId) {
+        String w = patterns[pattId];
+        int[] table = new int[w.length()];
+        int state = 0;
+        for (int i = 0; i < w.length(); i ++) {
+            table[i] = i == 0 ? -1 : depth[fail[state]];
+            state = delta[state * classes + charClass.get(w.charAt(i))];
+        }
+        return table;
+    }
+
+    /**
+     * Build the automaton for a set of keywords
+     * @param keywords non-empty keywords to search for
+     */
+    private void build(String[] keywords) {
+        patterns = keywords;
+
+        // compress the alphabet to the characters that actually occur in a keyword
+        String all = String.join("", keywords);
+        charClass = new CharIntMap(all, 0);
+        for (int i = 0; i < all.length(); i ++)
+            if (!charClass.containsKey(all.charAt(i))) charClass.put(all.charAt(i), charClass.size() + 1);
+        classes = charClass.size() + 1;
+
+        int maxStates = all.length() + 1;
+        if ((long) maxStates * classes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Keyword set too large for transition table");
+
+        int[] trie = new int[maxStates * classes];
+        Arrays.fill(trie, -1);
+        parent = new int[maxStates];
+        depth = new int[maxStates];
+        output = new int[maxStates];
+        prefixOf = new int[maxStates];
+        sameOutput = new int[keywords.length];
+        Arrays.fill(output, -1);
+        Arrays.fill(sameOutput, -1);
+        parent[0] = -1;
+        maxLength = 0;
+
+        // insert keywords into the trie
+        int states = 1;
+        for (int id = keywords.length - 1; id >= 0; id --) {
+            String w = keywords[id];
+            maxLength = Math.max(maxLength, w.length());
+            int state = 0;
+            prefixOf[0] = id;
+            for (int i = 0; i < w.length(); i ++) {
+                int c = state * classes + charClass.get(w.charAt(i));
+                if (trie[c] == -1) {
+                    trie[c] = states;
+                    parent[states] = state;
+                    depth[states] = i + 1;
+                    states ++;
+                }
+                state = trie[c];
+                prefixOf[state] = id;
+            }
+            sameOutput[id] = output[state];
+            output[state] = id;
+        }
+
+        // trim everything to the number of states actually used
+        delta = Arrays.copyOf(trie, states * classes);
+        parent = Arrays.copyOf(parent, states);
+        depth = Arrays.copyOf(depth, states);
+        output = Arrays.copyOf(output, states);
+        prefixOf = Arrays.copyOf(prefixOf, states);
+        fail = new int[states];
+        outLink = new int[states];
+        outLink[0] = -1;
+
+        // breadth first over the trie, so each state's failure link is known before its children's
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+        for (int c = 0; c < classes; c ++) {
+            if (delta[c] == -1) delta[c] = 0;
+            else {
+                fail[delta[c]] = 0;
+                outLink[delta[c]] = -1;
+                queue[tail++] = delta[c];
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int c = 0; c < classes; c ++) {
+                int t = delta[state * classes + c];
+                // no trie edge: behave as the failure state would, making the table complete
+                if (t == -1) delta[state * classes + c] = delta[fail[state] * classes + c];
+                else {
+                    fail[t] = delta[fail[state] * classes + c];
+                    outLink[t] = output[fail[t]] != -1 ? fail[t] : outLink[fail[t]];
+                    queue[tail++] = t;
+                }
+            }
+        }
+    }
+}
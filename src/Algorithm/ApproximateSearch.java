@@ -0,0 +1,399 @@
+package Algorithm;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Approximate string search, finding where the pattern occurs with at most k errors.
+ * <ul>
+ *     <li>{@link Mode#EDIT_DISTANCE} counts insertions, deletions and substitutions, using Myers' bit-vector
+ *     algorithm with Hyyrö's extension to patterns longer than 64 characters.</li>
+ *     <li>{@link Mode#HAMMING} counts substitutions only, using Wu and Manber's extension of Shift-Or with
+ *     one state vector per number of mismatches allowed.</li>
+ * </ul>
+ * Both run bit-parallel over the pattern, a few word operations per text character.
+ * <br>With edit distance a match has no single start, so the offsets this search reports are the index
+ * of the last text character of each match.
+ */
+public class ApproximateSearch implements SearchAlgorithm {
+    public enum Mode { EDIT_DISTANCE, HAMMING }
+
+    private final Mode mode;
+    private final int maxErrors;
+
+    private CharSequence text = "";
+    private String patt = "";
+
+    private CharIntMap charClass = new CharIntMap("", 0);  // character to peq index, 0 for characters not in patt
+    private long[] peq = new long[1];  // peq[class * words + w], bit i set if patt[i] is in the class
+    private int words = 1;             // longs per bit vector
+
+    private long[] pv, mv;   // Myers vertical deltas, positive and negative, for the step-by-step search
+    private long[][] r;      // Wu-Manber state vector per number of mismatches, for the step-by-step search
+    private int distance;    // errors in the best match ending at the last character read
+    private int k = 0;       // number of text characters read
+    private int pattOffset = 0;
+
+    private SearchStats stats = null;
+
+    /**
+     * @param maxErrors largest edit distance at which to report a match
+     */
+    public ApproximateSearch(int maxErrors) {
+        this(maxErrors, Mode.EDIT_DISTANCE);
+    }
+
+    /**
+     * @param maxErrors largest number of errors at which to report a match
+     * @param mode what counts as an error
+     */
+    public ApproximateSearch(int maxErrors, Mode mode) {
+        if (maxErrors < 0) throw new IllegalArgumentException("Maximum errors must not be negative");
+        this.maxErrors = maxErrors;
+        this.mode = mode;
+        restart();
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public int maxErrors() {
+        return maxErrors;
+    }
+
+    @Override
+    public boolean ready() {
+        return !(text.isEmpty() || patt.isEmpty()) && state() == State.IN_PROGRESS;
+    }
+
+    @Override
+    public State state() {
+        if (text.isEmpty() || patt.isEmpty()) return State.NO_MATCH;
+        if (k > 0 && distance <= maxErrors) return State.MATCH_FOUND;
+        if (k >= text.length()) return State.NO_MATCH;
+        return State.IN_PROGRESS;
+    }
+
+    @Override
+    public @NotNull CharSequence text() {
+        return text;
+    }
+
+    @Override
+    public @NotNull String patt() {
+        return patt;
+    }
+
+    @Override
+    public void setText(CharSequence s) {
+        text = s;
+        restart();
+    }
+
+    @Override
+    public void setPatt(String s) {
+        patt = s;
+        words = Math.max(1, (s.length() + Long.SIZE - 1) / Long.SIZE);
+
+        // one bit mask per distinct pattern character, plus class 0 (no bits) for every other character
+        charClass = new CharIntMap(s, 0);
+        for (int i = 0; i < s.length(); i ++)
+            if (!charClass.containsKey(s.charAt(i))) charClass.put(s.charAt(i), charClass.size() + 1);
+        peq = new long[(charClass.size() + 1) * words];
+        for (int i = 0; i < s.length(); i ++) peq[charClass.get(s.charAt(i)) * words + i / Long.SIZE] |= 1L << i;
+
+        restart();
+    }
+
+    private void restart() {
+        pv = new long[words];
+        mv = new long[words];
+        Arrays.fill(pv, ~0L);
+        r = new long[levels(patt.length())][words];
+        for (long[] level : r) Arrays.fill(level, ~0L);
+        distance = Integer.MAX_VALUE;
+        k = 0;
+        pattOffset = 0;
+    }
+
+    /**
+     * @return number of Wu-Manber state vectors needed; more errors than pattern characters are never needed
+     */
+    private int levels(int m) {
+        return Math.min(maxErrors, m) + 1;
+    }
+
+    @Override
+    public int pattOffset() {
+        return pattOffset;
+    }
+
+    /**
+     * @return errors in the best match ending at the last character read, or a value above
+     *         {@link #maxErrors()} if there is none
+     */
+    public int distance() {
+        return distance;
+    }
+
+    @Override
+    public @NotNull MatchInfo step() {
+        MatchInfo ret = new MatchInfo(k, 0, false);
+        if (k < text.length()) {
+            if (stats != null) stats.compared(1);
+            final int m = patt.length();
+            int c = charClass.get(text.charAt(k)) * words;
+            if (mode == Mode.EDIT_DISTANCE) {
+                // the last row starts at m, the cost of deleting the whole pattern
+                if (k == 0) distance = m;
+                distance += advanceAll(pv, mv, peq, c, m);
+            } else {
+                advanceAll(r, peq, c);
+                distance = Integer.MAX_VALUE;
+                for (int j = r.length - 1; j >= 0; j--) if (!bit(r[j], m - 1)) distance = j;
+            }
+            k ++;
+
+            // line the pattern up to end at the character just read
+            ret = new MatchInfo(k - 1, m - 1, distance <= maxErrors);
+            pattOffset = Math.max(0, k - m);
+        }
+        return ret;
+    }
+
+    /**
+     * @param from index of the text at which a match may end, at the earliest
+     * @return index of the last character of the first match ending at or after <code>from</code>, or -1
+     *         if there is none. Unlike the exact engines, this is where the match ends, not where it starts.
+     */
+    @Override
+    public int findFirst(int from) {
+        if (patt.isEmpty() || from >= text.length()) return -1;
+        Matches out = new Matches();
+        scan(Math.max(0, from), out, 1);
+        return out.size() == 0 ? -1 : out.get(0);
+    }
+
+    @Override
+    public int @NotNull [] findAll() {
+        Matches out = new Matches();
+        if (!patt.isEmpty()) scan(0, out, Integer.MAX_VALUE);
+        return out.toArray();
+    }
+
+    @Override
+    public int count() {
+        if (patt.isEmpty()) return 0;
+        return scan(0, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void setStats(@Nullable SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public @Nullable SearchStats stats() {
+        return stats;
+    }
+
+    /**
+     * Report the end of every match ending at or after <code>report</code>
+     * @param out receives the index of the last character of each match, or null if only counting
+     * @param limit stop after this many matches
+     * @return number of matches found
+     */
+    private int scan(int report, Matches out, int limit) {
+        final int m = patt.length();
+        // a match is at most m + maxErrors characters long, so one ending at report can start this early
+        final int from = (int) Math.max(0, (long) report - m - maxErrors + 1);
+        return switch (mode) {
+            case EDIT_DISTANCE -> words == 1
+                    ? myers(text, from, report, m, maxErrors, charClass, peq, out, limit, stats)
+                    : myersWide(text, from, report, m, maxErrors, charClass, peq, words, out, limit, stats);
+            case HAMMING -> words == 1
+                    ? hamming(text, from, report, m, levels(m), charClass, peq, out, limit, stats)
+                    : hammingWide(text, from, report, m, levels(m), charClass, peq, words, out, limit, stats);
+        };
+    }
+
+    /**
+     * Record one comparison, a mask lookup, per character the search read
+     * @param from index of the first character read
+     * @param k index of the last character read, or the length of the text if the search read to its end
+     */
+    private static void read(SearchStats stats, CharSequence text, int from, int k) {
+        if (stats != null) stats.compared(Math.max(0, Math.min(k + 1, text.length()) - from));
+    }
+
+    /**
+     * Myers' algorithm over a single <code>long</code>, for patterns of up to 64 characters
+     * @param from index of the text to start reading from
+     * @param report report only matches ending at or after this index
+     * @param stats records a comparison per character read, or null
+     */
+    static int myers(CharSequence text, int from, int report, int m, int maxErrors, CharIntMap charClass, long[] peq,
+                     Matches out, int limit, SearchStats stats) {
+        final long last = 1L << (m - 1);
+        int count = 0;
+        int score = m;
+        long pv = ~0L, mv = 0;
+        int k;
+        for (k = from; k < text.length(); k++) {
+            long eq = peq[charClass.get(text.charAt(k))];
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) score++;
+            else if ((mh & last) != 0) score--;
+            // the top row is all zeros, as a match may start anywhere, so nothing is shifted in
+            ph <<= 1;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+
+            if (score <= maxErrors && k >= report) {
+                if (out != null) out.add(k);
+                if (++count == limit) break;
+            }
+        }
+        read(stats, text, from, k);
+        return count;
+    }
+
+    /**
+     * Myers' algorithm over several <code>long</code>s, for patterns longer than 64 characters
+     */
+    static int myersWide(CharSequence text, int from, int report, int m, int maxErrors, CharIntMap charClass,
+                         long[] peq, int words, Matches out, int limit, SearchStats stats) {
+        int count = 0;
+        int score = m;
+        long[] pv = new long[words];
+        long[] mv = new long[words];
+        Arrays.fill(pv, ~0L);
+        int k;
+        for (k = from; k < text.length(); k++) {
+            score += advanceAll(pv, mv, peq, charClass.get(text.charAt(k)) * words, m);
+            if (score <= maxErrors && k >= report) {
+                if (out != null) out.add(k);
+                if (++count == limit) break;
+            }
+        }
+        read(stats, text, from, k);
+        return count;
+    }
+
+    /**
+     * Advance every block of the Myers vectors by one text character
+     * @param eq index of the first word of the character's mask
+     * @return change in edit distance at the last row
+     */
+    private static int advanceAll(long[] pv, long[] mv, long[] peq, int eq, int m) {
+        int h = 0;
+        for (int b = 0; b < pv.length; b++) {
+            long hb = b == pv.length - 1 ? 1L << (m - 1) : 1L << 63;
+            h = advance(pv, mv, b, peq[eq + b], h, hb);
+        }
+        return h;
+    }
+
+    /**
+     * Advance one block of the Myers vectors by one text character, following Hyyrö's block formulation
+     * @param hin horizontal delta entering the block from the block above: -1, 0 or +1
+     * @param hb bit of the block to read the horizontal delta leaving it from
+     * @return horizontal delta leaving the block
+     */
+    private static int advance(long[] pv, long[] mv, int b, long eq, int hin, long hb) {
+        long p = pv[b], n = mv[b];
+        long xv = eq | n;
+        if (hin < 0) eq |= 1;
+        long xh = (((eq & p) + p) ^ p) | eq;
+        long ph = n | ~(xh | p);
+        long mh = p & xh;
+        int hout = (ph & hb) != 0 ? 1 : (mh & hb) != 0 ? -1 : 0;
+        ph <<= 1;
+        mh <<= 1;
+        if (hin < 0) mh |= 1;
+        else if (hin > 0) ph |= 1;
+        pv[b] = mh | ~(xv | ph);
+        mv[b] = ph & xv;
+        return hout;
+    }
+
+    /**
+     * Wu-Manber k-mismatch Shift-Or over a single <code>long</code> per level, for patterns of up to 64 characters
+     * @param levels number of state vectors, one more than the mismatches allowed
+     */
+    static int hamming(CharSequence text, int from, int report, int m, int levels, CharIntMap charClass, long[] peq,
+                       Matches out, int limit, SearchStats stats) {
+        final long last = 1L << (m - 1);
+        final int top = levels - 1;
+        int count = 0;
+        long[] r = new long[levels];
+        Arrays.fill(r, ~0L);
+        int k;
+        for (k = from; k < text.length(); k++) {
+            long mask = ~peq[charClass.get(text.charAt(k))];
+            // highest level first, so each reads the level below as it was before this character
+            for (int j = top; j > 0; j--) r[j] = (r[j] << 1 | mask) & r[j - 1] << 1;
+            r[0] = r[0] << 1 | mask;
+
+            if ((r[top] & last) == 0 && k >= report) {
+                if (out != null) out.add(k);
+                if (++count == limit) break;
+            }
+        }
+        read(stats, text, from, k);
+        return count;
+    }
+
+    /**
+     * Wu-Manber k-mismatch Shift-Or over several <code>long</code>s per level, for patterns longer than
+     * 64 characters
+     */
+    static int hammingWide(CharSequence text, int from, int report, int m, int levels, CharIntMap charClass,
+                           long[] peq, int words, Matches out, int limit, SearchStats stats) {
+        final long last = 1L << (m - 1);
+        final int lastWord = (m - 1) / Long.SIZE;
+        int count = 0;
+        long[][] r = new long[levels][words];
+        for (long[] level : r) Arrays.fill(level, ~0L);
+        int k;
+        for (k = from; k < text.length(); k++) {
+            advanceAll(r, peq, charClass.get(text.charAt(k)) * words);
+            if ((r[levels - 1][lastWord] & last) == 0 && k >= report) {
+                if (out != null) out.add(k);
+                if (++count == limit) break;
+            }
+        }
+        read(stats, text, from, k);
+        return count;
+    }
+
+    /**
+     * Advance every level of the Wu-Manber state vectors by one text character
+     * @param eq index of the first word of the character's mask
+     */
+    private static void advanceAll(long[][] r, long[] peq, int eq) {
+        final int words = r[0].length;
+        for (int j = r.length - 1; j >= 0; j--) {
+            long[] d = r[j];
+            long[] below = j > 0 ? r[j - 1] : null;
+            // words from the top down, so each reads the carry from the word under it before that changes
+            for (int w = words - 1; w >= 0; w--) {
+                long carry = w > 0 ? d[w - 1] >>> 63 : 0;
+                long next = (d[w] << 1 | carry) | ~peq[eq + w];
+                if (below != null) next &= below[w] << 1 | (w > 0 ? below[w - 1] >>> 63 : 0);
+                d[w] = next;
+            }
+        }
+    }
+
+    private static boolean bit(long[] d, int i) {
+        return (d[i / Long.SIZE] & 1L << i) != 0;
+    }
+}
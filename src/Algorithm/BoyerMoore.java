@@ -1,16 +1,27 @@
 package Algorithm;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.nio.CharBuffer;
 import java.util.Map;
 
+/**
+ * Boyer-Moore string search algorithm.
+ * <br>Optionally ignores case, see {@link #setCaseFolding}, by folding the pattern once and each text
+ * character as it is compared.
+ */
 public class BoyerMoore implements SearchAlgorithm {
-    private String text = "";
+    private CharSequence text = "";
+    private String string = "";    // text, if it is a String
+    private char[] chars = null;   // array holding text, if it is an array backed CharBuffer
+    private byte[] latin1 = null;  // array holding text, if it is Latin-1 bytes
+    private int offset = 0;        // index of the start of text in chars or latin1
     private String patt = "";
+    private String key = "";  // patt with its case folded, as compared against the text
 
-    private Map<Character, Integer> badCharDict;  // Bad character rule
+    private CompiledPattern compiled = CompiledPattern.of("");
+    private CharIntMap badCharTable;              // Bad character rule
     private int[] goodSuffixTable;                // Good suffix rule
 
     private int i = 0;  // i is the current index from text where comparison begins
@@ -19,6 +30,12 @@ public class BoyerMoore implements SearchAlgorithm {
     private int pattOffset = 0;
     private MatchInfo lastMatch = null;
 
+    private boolean worstCaseLinear = false;  // run the bulk searches as Turbo-BM
+    private CaseFolding folding = CaseFolding.NONE;
+    private boolean codePoints = false;
+    private int anchor = CandidateFilter.UNCHOSEN;  // pattern character the bulk searches scan for
+    private SearchStats stats = null;
+
     @Override
     public boolean ready() {
         return !(text.isEmpty() || patt.isEmpty()) && state() == State.IN_PROGRESS;
@@ -35,7 +52,7 @@ public class BoyerMoore implements SearchAlgorithm {
     }
 
     @Override
-    public @NotNull String text() {
+    public @NotNull CharSequence text() {
         return text;
     }
 
@@ -45,16 +62,38 @@ public class BoyerMoore implements SearchAlgorithm {
     }
 
     @Override
-    public void setText(String s) {
+    public void setText(CharSequence s) {
         text = s;
+        string = null;
+        chars = null;
+        latin1 = null;
+        offset = 0;
+        // remember how the text is held, to pick the loop specialised for it
+        switch (s) {
+            case String str -> string = str;
+            case CharBuffer buf when buf.hasArray() -> {
+                chars = buf.array();
+                offset = buf.arrayOffset() + buf.position();
+            }
+            case Latin1Text t -> {
+                latin1 = t.bytes();
+                offset = t.offset();
+            }
+            default -> { }
+        }
+        anchor = CandidateFilter.UNCHOSEN;
         restart();
     }
 
     @Override
     public void setPatt(String s) {
+        if (codePoints) CompiledPattern.requireWellFormed(s);
         patt = s;
-        badCharDict = badChar(patt);
-        goodSuffixTable = goodSuffix(patt);
+        key = folding.fold(s);
+        compiled = CompiledPattern.of(key);
+        badCharTable = compiled.badChar();
+        goodSuffixTable = compiled.goodSuffix();
+        anchor = CandidateFilter.UNCHOSEN;
         restart();
     }
 
@@ -63,16 +102,20 @@ public class BoyerMoore implements SearchAlgorithm {
         MatchInfo match = new MatchInfo(i, j, false);
 
         if (i < text.length()) {
+            if (stats != null) stats.compared(1);
             // move left through pattern step by step matching characters
-            if (patt.charAt(j) == text.charAt(i)) {
+            if (key.charAt(j) == folding.fold(text, i)) {
                 match = new MatchInfo(i, j, true);
                 i--;
                 j--;
             } else {
                 // at position of mismatch, make the biggest jump based on the two rules
-                i += Math.max(goodSuffixTable[patt.length() - j - 1],
-                        badCharDict.getOrDefault(text.charAt(i), patt.length()));
+                int goodSuffix = goodSuffixTable[patt.length() - j - 1];
                 // for a bad character that isn't found in the pattern: jump the whole pattern length
+                int badChar = badCharTable.get(folding.fold(text, i));
+                int jump = Math.max(goodSuffix, badChar);
+                if (stats != null) stats.shifted(jump - (patt.length() - 1 - j), badChar, goodSuffix);
+                i += jump;
 
                 j = patt.length() - 1;
             }
@@ -88,6 +131,161 @@ public class BoyerMoore implements SearchAlgorithm {
         return lastMatch.textIndex() - lastMatch.pattIndex();
     }
 
+    @Override
+    public int findFirst(int from) {
+        if (!searchable()) return -1;
+        if (worstCaseLinear) {
+            Matches out = new Matches();
+            turboScan(text, Math.max(0, from), text.length(), key, folding, badCharTable, goodSuffixTable, out, 1, stats);
+            return out.size() == 0 ? -1 : out.get(0);
+        }
+        if (folding != CaseFolding.NONE) {
+            Matches out = new Matches();
+            foldedScan(Math.max(0, from), out, 1);
+            return out.size() == 0 ? -1 : out.get(0);
+        }
+        if (stats != null) {
+            Matches out = new Matches();
+                countedScan(text, Math.max(0, from), text.length(), patt, badCharTable, goodSuffixTable, out, 1, stats);
+            return out.size() == 0 ? -1 : out.get(0);
+        }
+        if (string == null || anchor() != CandidateFilter.NONE) {
+            Matches out = new Matches();
+            if (string == null) directScan(Math.max(0, from), out, 1);
+            else filteredScan(Math.max(0, from), out, 1);
+            return out.size() == 0 ? -1 : out.get(0);
+        }
+        return indexOf(string, Math.max(0, from), string.length(), patt, badCharTable, goodSuffixTable);
+    }
+
+    @Override
+    public int @NotNull [] findAll() {
+        Matches out = new Matches();
+        if (!searchable()) return out.toArray();
+
+        if (worstCaseLinear)
+            turboScan(text, 0, text.length(), key, folding, badCharTable, goodSuffixTable, out, Integer.MAX_VALUE, stats);
+        else if (folding != CaseFolding.NONE)
+            foldedScan(0, out, Integer.MAX_VALUE);
+        else if (stats != null)
+            countedScan(text, 0, text.length(), patt, badCharTable, goodSuffixTable, out, Integer.MAX_VALUE, stats);
+        else if (string == null)
+            directScan(0, out, Integer.MAX_VALUE);
+        else if (anchor() != CandidateFilter.NONE)
+            filteredScan(0, out, Integer.MAX_VALUE);
+        else
+            scan(string, 0, string.length(), patt, badCharTable, goodSuffixTable, out, Integer.MAX_VALUE);
+        return out.toArray();
+    }
+
+    @Override
+    public int count() {
+        if (!searchable()) return 0;
+        if (worstCaseLinear)
+            return turboScan(text, 0, text.length(), key, folding, badCharTable, goodSuffixTable, null, Integer.MAX_VALUE, stats);
+        if (folding != CaseFolding.NONE) return foldedScan(0, null, Integer.MAX_VALUE);
+        if (stats != null)
+            return countedScan(text, 0, text.length(), patt, badCharTable, goodSuffixTable, null, Integer.MAX_VALUE, stats);
+        if (string == null) return directScan(0, null, Integer.MAX_VALUE);
+        if (anchor() != CandidateFilter.NONE) return filteredScan(0, null, Integer.MAX_VALUE);
+        return scan(string, 0, string.length(), patt, badCharTable, goodSuffixTable, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Choose whether the run-to-completion searches use the Turbo-BM variant, which remembers the part
+     * of the pattern matched by the previous attempt and never compares it again. This bounds the
+     * search to a linear number of comparisons even for periodic patterns such as <code>aaa...a</code>,
+     * at the cost of some bookkeeping per shift. Stepping through the search is unaffected.
+     * @param b true for worst case linear searches, false for plain Boyer-Moore
+     */
+    public void setWorstCaseLinear(boolean b) {
+        worstCaseLinear = b;
+    }
+
+    public boolean worstCaseLinear() {
+        return worstCaseLinear;
+    }
+
+    /**
+     * Choose how characters are folded before comparing them. The text is not copied, each character is
+     * folded as the search reaches it, and the bad character table is built over folded characters.
+     * With {@link #setWorstCaseLinear} the run-to-completion searches stay linear while folding.
+     * @param folding case folding to compare with, <code>NONE</code> for an exact search
+     */
+    public void setCaseFolding(CaseFolding folding) {
+        this.folding = folding;
+        setPatt(patt);
+    }
+
+    public CaseFolding caseFolding() {
+        return folding;
+    }
+
+    /**
+     * Choose whether the pattern must be whole code points. A pattern without unpaired surrogates can
+     * only match whole code points of the text, so no match splits a surrogate pair.
+     * @param b true to reject patterns containing unpaired surrogates
+     * @throws IllegalArgumentException if turning this on while the pattern has an unpaired surrogate
+     */
+    public void setCodePoints(boolean b) {
+        if (b) CompiledPattern.requireWellFormed(patt);
+        codePoints = b;
+    }
+
+    public boolean codePoints() {
+        return codePoints;
+    }
+
+    @Override
+    public void setStats(@Nullable SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public @Nullable SearchStats stats() {
+        return stats;
+    }
+
+    /**
+     * @return whether the pattern could fit in the text
+     */
+    private boolean searchable() {
+        return !patt.isEmpty() && patt.length() <= text.length();
+    }
+
+    /**
+     * @return the pattern character to scan for in the bulk searches, or <code>CandidateFilter.NONE</code>
+     */
+    private int anchor() {
+        if (anchor == CandidateFilter.UNCHOSEN) anchor = CandidateFilter.anchor(string, patt);
+        return anchor;
+    }
+
+    /**
+     * Search through <code>CandidateFilter</code>, falling back to {@link #scan}
+     */
+    private int filteredScan(int from, Matches out, int limit) {
+        return CandidateFilter.scan(string, from, string.length(), patt, anchor, out, limit,
+                (f, t, o, l) -> scan(string, f, t, patt, badCharTable, goodSuffixTable, o, l));
+    }
+
+    /**
+     * Search a text that isn't a String, through the loop for however it is held
+     */
+    private int directScan(int from, Matches out, int limit) {
+        final int to = text.length();
+        if (chars != null) return scan(chars, offset, from, to, patt, badCharTable, goodSuffixTable, out, limit);
+        if (latin1 != null) return scan(latin1, offset, from, to, patt, badCharTable, goodSuffixTable, out, limit);
+        return scan(text, from, to, patt, badCharTable, goodSuffixTable, out, limit);
+    }
+
+    /**
+     * Search comparing folded characters, see {@link #setCaseFolding}
+     */
+    private int foldedScan(int from, Matches out, int limit) {
+        return foldedScan(text, from, text.length(), key, folding, badCharTable, goodSuffixTable, out, limit, stats);
+    }
+
     private void restart() {
         pattOffset = 0;
         lastMatch = new MatchInfo(0, 0, false);
@@ -97,70 +295,358 @@ public class BoyerMoore implements SearchAlgorithm {
         j = patt.length() - 1;
     }
 
+    /**
+     * @return the current pattern with its preprocessing tables
+     */
+    public CompiledPattern compiled() {
+        return compiled;
+    }
+
     public Map<Character, Integer> badCharDict() {
-        return Collections.unmodifiableMap(badCharDict);
+        return badCharTable.asMap();
     }
 
     public int[] goodSuffixTable() {
         return goodSuffixTable.clone();
     }
 
+    /**
+     * Find the first match lying entirely within <code>text[from, to)</code>
+     * @return offset of the first match, or -1 if there is none
+     */
+    static int indexOf(String text, int from, int to, String patt,
+                       CharIntMap badChar, int[] goodSuffix) {
+        final int m = patt.length();
+        if (from > to - m) return -1;  // also keeps from + m from overflowing
+        int i = from + m - 1;  // index in text where comparison begins
+        while (i < to) {
+            int j = m - 1;
+            while (patt.charAt(j) == text.charAt(i)) {
+                if (j == 0) return i;
+                i--;
+                j--;
+            }
+            i += Math.max(goodSuffix[m - j - 1], badChar.get(text.charAt(i)));
+        }
+        return -1;
+    }
+
+    /**
+     * Report every match lying entirely within <code>text[from, to)</code>
+     * @param out receives the match offsets, or null if only counting
+     * @param limit stop after this many matches
+     * @return number of matches found
+     */
+    static int scan(String text, int from, int to, String patt,
+                    CharIntMap badChar, int[] goodSuffix, Matches out, int limit) {
+        final int m = patt.length();
+        if (from > to - m) return 0;
+        int count = 0;
+        int i = from + m - 1;
+        while (i < to) {
+            int j = m - 1;
+            while (j >= 0 && patt.charAt(j) == text.charAt(i)) {
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (out != null) out.add(i + 1);
+                if (++count == limit) break;
+                // the match started at i + 1; slide the pattern along by its period
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                i += Math.max(goodSuffix[m - j - 1], badChar.get(text.charAt(i)));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan(String, int, int, String, CharIntMap, int[], Matches, int)}, over any CharSequence
+     */
+    static int scan(CharSequence text, int from, int to, String patt,
+                    CharIntMap badChar, int[] goodSuffix, Matches out, int limit) {
+        final int m = patt.length();
+        if (from > to - m) return 0;
+        int count = 0;
+        int i = from + m - 1;
+        while (i < to) {
+            int j = m - 1;
+            while (j >= 0 && patt.charAt(j) == text.charAt(i)) {
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (out != null) out.add(i + 1);
+                if (++count == limit) break;
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                i += Math.max(goodSuffix[m - j - 1], badChar.get(text.charAt(i)));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan(String, int, int, String, CharIntMap, int[], Matches, int)}, over
+     * <code>text[offset + from, offset + to)</code>, reporting offsets relative to <code>offset</code>
+     */
+    static int scan(char[] text, int offset, int from, int to, String patt,
+                    CharIntMap badChar, int[] goodSuffix, Matches out, int limit) {
+        final int m = patt.length();
+        if (from > to - m) return 0;
+        int count = 0;
+        int i = from + m - 1;
+        while (i < to) {
+            int j = m - 1;
+            while (j >= 0 && patt.charAt(j) == text[offset + i]) {
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (out != null) out.add(i + 1);
+                if (++count == limit) break;
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                i += Math.max(goodSuffix[m - j - 1], badChar.get(text[offset + i]));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan(String, int, int, String, CharIntMap, int[], Matches, int)}, over Latin-1 bytes
+     * <code>text[offset + from, offset + to)</code>, reporting offsets relative to <code>offset</code>
+     */
+    static int scan(byte[] text, int offset, int from, int to, String patt,
+                    CharIntMap badChar, int[] goodSuffix, Matches out, int limit) {
+        final int m = patt.length();
+        if (from > to - m) return 0;
+        int count = 0;
+        int i = from + m - 1;
+        while (i < to) {
+            int j = m - 1;
+            while (j >= 0 && patt.charAt(j) == (char) (text[offset + i] & 0xFF)) {
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (out != null) out.add(i + 1);
+                if (++count == limit) break;
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                i += Math.max(goodSuffix[m - j - 1], badChar.get((char) (text[offset + i] & 0xFF)));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Report every match lying entirely within <code>text[from, to)</code>, using the Turbo-BM rules
+     * @param key pattern, already folded
+     * @param folding case folding applied to each text character before comparing or looking it up
+     * @param out receives the match offsets, or null if only counting
+     * @param limit stop after this many matches
+     * @param stats records comparisons and shifts, or null
+     * @return number of matches found
+     */
+    static int turboScan(CharSequence text, int from, int to, String key, CaseFolding folding,
+                         CharIntMap badChar, int[] goodSuffix, Matches out, int limit, SearchStats stats) {
+        final int m = key.length();
+        if (from > to - m) return 0;
+        final int period = goodSuffix[m - 1] - m + 1;
+        int count = 0;
+        long comparisons = 0;
+        int u = 0;      // length of the pattern factor known to match from the previous attempt
+        int shift = m;  // length of the previous shift
+
+        for (int j = from; j <= to - m; j += shift) {  // j is the start of the current window
+            int i = m - 1;
+            while (i >= 0 && key.charAt(i) == folding.fold(text, i + j)) {
+                comparisons++;
+                i--;
+                // skip over the remembered factor, which lines up exactly here after the last shift
+                if (u != 0 && i == m - 1 - shift) i -= u;
+            }
+
+            if (i < 0) {
+                if (out != null) out.add(j);
+                if (++count == limit) break;
+                shift = period;
+                u = m - shift;
+                if (stats != null) stats.shifted(shift);
+            } else {
+                comparisons++;      // the mismatch
+                int v = m - 1 - i;  // number of characters matched in this attempt
+                int turboShift = u - v;
+                int badCharShift = badChar.get(folding.fold(text, i + j)) - v;
+                int goodSuffixShift = goodSuffix[v] - v;
+                shift = Math.max(turboShift, Math.max(badCharShift, goodSuffixShift));
+
+                if (shift == goodSuffixShift) {
+                    // the matched suffix reoccurs where the pattern now lines up, remember it
+                    u = Math.min(m - shift, v);
+                } else {
+                    // the two factors can't both match, so the text character can't be in the same place
+                    if (turboShift < badCharShift) shift = Math.max(shift, u + 1);
+                    u = 0;
+                }
+                if (stats != null) stats.shifted(shift, badCharShift, goodSuffixShift);
+            }
+        }
+        if (stats != null) stats.compared(comparisons);
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan}, but also records every comparison and shift.
+     * Kept separate so the uninstrumented loop carries no cost for it.
+     */
+    static int countedScan(CharSequence text, int from, int to, String patt,
+                           CharIntMap badChar, int[] goodSuffix, Matches out, int limit, SearchStats stats) {
+        final int m = patt.length();
+        if (from > to - m) return 0;
+        int count = 0;
+        long comparisons = 0;
+        int i = from + m - 1;
+        while (i < to) {
+            int j = m - 1;
+            while (j >= 0 && patt.charAt(j) == text.charAt(i)) {
+                comparisons++;
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (out != null) out.add(i + 1);
+                if (++count == limit) break;
+                stats.shifted(goodSuffix[m - 1] - m + 1);
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                comparisons++;
+                int goodSuffixJump = goodSuffix[m - j - 1];
+                int badCharJump = badChar.get(text.charAt(i));
+                int jump = Math.max(goodSuffixJump, badCharJump);
+                stats.shifted(jump - (m - 1 - j), badCharJump, goodSuffixJump);
+                i += jump;
+            }
+        }
+        stats.compared(comparisons);
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan}, but folds each text character before comparing or looking it up, and records
+     * every comparison and shift if <code>stats</code> is not null
+     * @param key pattern, already folded
+     * @param badChar bad character table of the folded pattern
+     * @param goodSuffix good suffix table of the folded pattern
+     */
+    static int foldedScan(CharSequence text, int from, int to, String key, CaseFolding folding,
+                          CharIntMap badChar, int[] goodSuffix, Matches out, int limit, SearchStats stats) {
+        final int m = key.length();
+        if (from > to - m) return 0;
+        int count = 0;
+        long comparisons = 0;
+        int i = from + m - 1;
+        while (i < to) {
+            int j = m - 1;
+            while (j >= 0 && key.charAt(j) == folding.fold(text, i)) {
+                comparisons++;
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (out != null) out.add(i + 1);
+                if (++count == limit) break;
+                if (stats != null) stats.shifted(goodSuffix[m - 1] - m + 1);
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                comparisons++;
+                int goodSuffixJump = goodSuffix[m - j - 1];
+                int badCharJump = badChar.get(folding.fold(text, i));
+                int jump = Math.max(goodSuffixJump, badCharJump);
+                if (stats != null) stats.shifted(jump - (m - 1 - j), badCharJump, goodSuffixJump);
+                i += jump;
+            }
+        }
+        if (stats != null) stats.compared(comparisons);
+        return count;
+    }
+
     /**
      * Generates a map representing the jump lengths according to the bad character rule
      * @param s string to generate the bad character dictionary for
      * @return map from character to jump length
      */
     public static Map<Character, Integer> badChar(String s) {
-        return new HashMap<>() {{
-            for (int i = 0; i < s.length(); i ++)
-                // jump so that a bad match (with a character that's in the pattern)
-                // will line up the mismatch with that character in the pattern
-                put(s.charAt(i), Math.max(1, s.length() - i - 1));
-        }};
+        return badCharTable(s).asMap();
+    }
+
+    /**
+     * Generates a primitive table of the jump lengths according to the bad character rule
+     * @param s string to generate the bad character table for
+     * @return table from character to jump length, defaulting to the length of <code>s</code>
+     */
+    public static CharIntMap badCharTable(String s) {
+        // for a bad character that isn't found in the pattern: jump the whole pattern length
+        CharIntMap table = new CharIntMap(s, s.length());
+        for (int i = 0; i < s.length(); i ++)
+            // jump so that a bad match (with a character that's in the pattern)
+            // will line up the mismatch with that character in the pattern
+            table.put(s.charAt(i), Math.max(1, s.length() - i - 1));
+        return table;
     }
 
     /**
      * Generates a table representing the jump lengths according to the good suffix rule
-     * @param s
-     * @return
+     * <br>Runs in time linear in the length of the pattern.
+     * @param s string to generate the good suffix table for
+     * @return table from number of matched characters to jump length
      */
     public static int[] goodSuffix(String s) {
-        int[] offsetTable = new int[s.length()];
-        int last = s.length();
-        for (int i = s.length(); i > 0; --i) {
-            if (isPrefix(s, i)) {
+        final int m = s.length();
+        int[] offsetTable = new int[m];
+        int[] suff = suffixes(s);
+        int last = m;
+        for (int i = m; i > 0; --i) {
+            // the suffix starting at i is also a prefix of the pattern
+            if (i == m || suff[m - i - 1] == m - i) {
                 last = i;
             }
-            offsetTable[s.length() - i] = last - i + s.length();
+            offsetTable[m - i] = last - i + m;
         }
-        for (int i = 0; i < s.length() - 1; ++i) {
-            int suffixLength = suffixLength(s, i);
-            offsetTable[suffixLength] = s.length() - 1 - i + suffixLength;
+        for (int i = 0; i < m - 1; ++i) {
+            offsetTable[suff[i]] = m - 1 - i + suff[i];
         }
         return offsetTable;
     }
 
     /**
+     * Crochemore's linear time computation of every suffix length at once,
+     * reusing the comparisons made for the rightmost previous match
      * @param s
-     * @param p
-     * @return whether the suffix of the pattern starting from p is a prefix of the pattern
+     * @return for each index p, the length of the longest suffix of <code>s[0, p]</code> that is a suffix of s
      */
-    private static boolean isPrefix(String s, int p) {
-        for (int i = p, j = 0; i < s.length(); ++i, ++j) {
-            if (s.charAt(i) != s.charAt(j)) return false;
-        }
-        return true;
-    }
+    private static int[] suffixes(String s) {
+        final int m = s.length();
+        final char[] c = s.toCharArray();
+        int[] suff = new int[m];
+        if (m == 0) return suff;
 
-    /**
-     * @param s
-     * @param p
-     * @return length of suffix that ends at p
-     */
-    private static int suffixLength(String s, int p) {
-        int len = 0;
-        // check from right to left, matching chars
-        for (int i = p, j = s.length() - 1; i >= 0 && s.charAt(i) == s.charAt(j); --i, --j) len ++;
-        return len;
+        suff[m - 1] = m;
+        int f = m - 1;  // end of the rightmost suffix match found so far
+        int g = m - 1;  // index just before its start
+        for (int i = m - 2; i >= 0; --i) {
+            // inside the last match the answer mirrors an earlier one, unless it reaches past the match
+            if (i > g && suff[i + m - 1 - f] < i - g) {
+                suff[i] = suff[i + m - 1 - f];
+            } else {
+                if (i < g) g = i;
+                f = i;
+                while (g >= 0 && c[g] == c[g + m - 1 - f]) --g;
+                suff[i] = f - g;
+            }
+        }
+        return suff;
     }
 }
@@ -0,0 +1,293 @@
+package Algorithm;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * KMP or Boyer-Moore search over UTF-8 bytes, without decoding them to a <code>String</code>.
+ * <br>The pattern is encoded as UTF-8 once, when the search is created. UTF-8 never encodes one code point
+ * as part of another, so a match of the encoded pattern is always a match of the pattern, starting on a
+ * code point boundary. The bad character rule is a plain 256 entry table indexed by byte value.
+ * <br>All offsets are byte offsets, relative to the start of the text; {@link #charOffsets} translates the
+ * offsets of matches into <code>String</code> indexes when they are needed.
+ */
+public class ByteSearch {
+    private final Engine engine;
+    private final byte[] patt;
+
+    private final int[] match;       // KMP partial match table
+    private final int[] badChar;     // Boyer-Moore bad character rule, indexed by byte value
+    private final int[] goodSuffix;  // Boyer-Moore good suffix rule
+
+    /**
+     * @param patt pattern to search for
+     * @param engine search engine to run over the bytes
+     * @throws IllegalArgumentException if the pattern is empty or contains an unpaired surrogate
+     */
+    public ByteSearch(String patt, Engine engine) {
+        if (patt.isEmpty()) throw new IllegalArgumentException("Pattern must not be empty");
+        CompiledPattern.requireWellFormed(patt);
+        this.engine = engine;
+        this.patt = patt.getBytes(StandardCharsets.UTF_8);
+
+        // the preprocessing works on the pattern's bytes viewed as chars 0-255
+        String bytes = new String(this.patt, StandardCharsets.ISO_8859_1);
+        match = KMP.partialMatchTable(bytes);
+        badChar = badCharTable(this.patt);
+        goodSuffix = BoyerMoore.goodSuffix(bytes);
+    }
+
+    public Engine engine() {
+        return engine;
+    }
+
+    /**
+     * @return a copy of the pattern, encoded as UTF-8
+     */
+    public byte[] patt() {
+        return patt.clone();
+    }
+
+    /**
+     * @return byte offset of the first match starting at or after <code>from</code>, or -1 if there is none
+     */
+    public int findFirst(byte[] text, int from) {
+        Matches out = new Matches();
+        scan(text, 0, Math.max(0, from), text.length, out, 1);
+        return out.size() == 0 ? -1 : out.get(0);
+    }
+
+    /**
+     * @return byte offsets of every (possibly overlapping) match, in ascending order
+     */
+    public int[] findAll(byte[] text) {
+        return findAll(text, 0, text.length);
+    }
+
+    /**
+     * @param offset index of the first byte of the text in <code>text</code>
+     * @param length number of bytes in the text
+     * @return byte offsets of every (possibly overlapping) match, relative to <code>offset</code>
+     */
+    public int[] findAll(byte[] text, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, text.length);
+        Matches out = new Matches();
+        scan(text, offset, 0, length, out, Integer.MAX_VALUE);
+        return out.toArray();
+    }
+
+    /**
+     * @return byte offsets of every (possibly overlapping) match between the buffer's position and limit,
+     *         relative to its position
+     */
+    public int[] findAll(ByteBuffer text) {
+        Matches out = new Matches();
+        scan(text, out, Integer.MAX_VALUE);
+        return out.toArray();
+    }
+
+    /**
+     * @return number of (possibly overlapping) matches
+     */
+    public int count(byte[] text) {
+        return count(text, 0, text.length);
+    }
+
+    /**
+     * @param offset index of the first byte of the text in <code>text</code>
+     * @param length number of bytes in the text
+     * @return number of (possibly overlapping) matches
+     */
+    public int count(byte[] text, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, text.length);
+        return scan(text, offset, 0, length, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return number of (possibly overlapping) matches between the buffer's position and limit
+     */
+    public int count(ByteBuffer text) {
+        return scan(text, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Translate the byte offsets of matches into the indexes they would have in the decoded
+     * <code>String</code>. Only the bytes before the last match are read, and they are counted, not decoded.
+     * @param utf8 well-formed UTF-8 text the offsets were found in
+     * @param offset index of the first byte of the text in <code>utf8</code>
+     * @param byteOffsets byte offsets relative to <code>offset</code>, in ascending order
+     * @return UTF-16 index of each offset, in the same order
+     */
+    public static int[] charOffsets(byte[] utf8, int offset, int[] byteOffsets) {
+        int[] chars = new int[byteOffsets.length];
+        int k = 0;      // bytes counted so far
+        int units = 0;  // UTF-16 units they decode to
+        for (int h = 0; h < byteOffsets.length; h ++) {
+            if (byteOffsets[h] < k) throw new IllegalArgumentException("Byte offsets must be in ascending order");
+            for (; k < byteOffsets[h]; k++) units += utf16Length(utf8[offset + k]);
+            chars[h] = units;
+        }
+        return chars;
+    }
+
+    /**
+     * Same as {@link #charOffsets(byte[], int, int[])}, for offsets relative to the position of a buffer
+     */
+    public static int[] charOffsets(ByteBuffer utf8, int[] byteOffsets) {
+        if (utf8.hasArray()) return charOffsets(utf8.array(), utf8.arrayOffset() + utf8.position(), byteOffsets);
+        int[] chars = new int[byteOffsets.length];
+        final int base = utf8.position();
+        int k = 0;
+        int units = 0;
+        for (int h = 0; h < byteOffsets.length; h ++) {
+            if (byteOffsets[h] < k) throw new IllegalArgumentException("Byte offsets must be in ascending order");
+            for (; k < byteOffsets[h]; k++) units += utf16Length(utf8.get(base + k));
+            chars[h] = units;
+        }
+        return chars;
+    }
+
+    /**
+     * @return number of UTF-16 units a UTF-8 byte adds to the decoded text: none for a continuation byte,
+     *         two for the lead byte of a supplementary code point, and one for any other lead byte
+     */
+    private static int utf16Length(byte b) {
+        return (b & 0xC0) == 0x80 ? 0 : (b & 0xF8) == 0xF0 ? 2 : 1;
+    }
+
+    /**
+     * @param patt pattern bytes
+     * @return jump for a mismatch against each byte value, as in <code>BoyerMoore.badCharTable</code>
+     */
+    static int[] badCharTable(byte[] patt) {
+        int[] table = new int[256];
+        Arrays.fill(table, patt.length);
+        for (int i = 0; i < patt.length; i ++) table[patt[i] & 0xFF] = Math.max(1, patt.length - i - 1);
+        return table;
+    }
+
+    /**
+     * Report every match lying entirely within <code>text[offset + from, offset + to)</code>, relative to
+     * <code>offset</code>
+     * @param out receives the match offsets, or null if only counting
+     * @param limit stop after this many matches
+     * @return number of matches found
+     */
+    private int scan(byte[] text, int offset, int from, int to, Matches out, int limit) {
+        return switch (engine) {
+            case KMP -> kmp(text, offset, from, to, patt, match, out, limit);
+            case BOYER_MOORE -> boyerMoore(text, offset, from, to, patt, badChar, goodSuffix, out, limit);
+        };
+    }
+
+    /**
+     * Report every match between the buffer's position and limit, going through its backing array if it
+     * has one
+     */
+    private int scan(ByteBuffer text, Matches out, int limit) {
+        if (text.hasArray())
+            return scan(text.array(), text.arrayOffset() + text.position(), 0, text.remaining(), out, limit);
+        return switch (engine) {
+            case KMP -> kmp(text, text.position(), text.remaining(), patt, match, out, limit);
+            case BOYER_MOORE -> boyerMoore(text, text.position(), text.remaining(), patt, badChar, goodSuffix,
+                    out, limit);
+        };
+    }
+
+    /**
+     * KMP over bytes, see <code>KMP.scan</code>
+     */
+    static int kmp(byte[] text, int offset, int from, int to, byte[] patt, int[] match, Matches out, int limit) {
+        final int m = patt.length;
+        final byte first = patt[0];
+        int count = 0;
+        int i = 0;
+        for (int k = from; k < to; k++) {
+            // with no partial match, skip straight to the next byte that could start one
+            if (i == 0) {
+                while (k < to && text[offset + k] != first) k++;
+                if (k == to) break;
+            }
+            final byte b = text[offset + k];
+            while (i >= 0 && patt[i] != b) i = match[i];
+            if (++i == m) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+                i = match[m];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * KMP over <code>text[base, base + len)</code>, for buffers without a backing array
+     */
+    static int kmp(ByteBuffer text, int base, int len, byte[] patt, int[] match, Matches out, int limit) {
+        final int m = patt.length;
+        int count = 0;
+        int i = 0;
+        for (int k = 0; k < len; k++) {
+            final byte b = text.get(base + k);
+            while (i >= 0 && patt[i] != b) i = match[i];
+            if (++i == m) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+                i = match[m];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Boyer-Moore over bytes, see <code>BoyerMoore.scan</code>
+     */
+    static int boyerMoore(byte[] text, int offset, int from, int to, byte[] patt, int[] badChar, int[] goodSuffix,
+                          Matches out, int limit) {
+        final int m = patt.length;
+        if (from > to - m) return 0;  // also keeps from + m from overflowing
+        int count = 0;
+        int i = from + m - 1;
+        while (i < to) {
+            int j = m - 1;
+            while (j >= 0 && patt[j] == text[offset + i]) {
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (out != null) out.add(i + 1);
+                if (++count == limit) break;
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                i += Math.max(goodSuffix[m - j - 1], badChar[text[offset + i] & 0xFF]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Boyer-Moore over <code>text[base, base + len)</code>, for buffers without a backing array
+     */
+    static int boyerMoore(ByteBuffer text, int base, int len, byte[] patt, int[] badChar, int[] goodSuffix,
+                          Matches out, int limit) {
+        final int m = patt.length;
+        int count = 0;
+        int i = m - 1;
+        while (i < len) {
+            int j = m - 1;
+            while (j >= 0 && patt[j] == text.get(base + i)) {
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (out != null) out.add(i + 1);
+                if (++count == limit) break;
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                i += Math.max(goodSuffix[m - j - 1], badChar[text.get(base + i) & 0xFF]);
+            }
+        }
+        return count;
+    }
+}
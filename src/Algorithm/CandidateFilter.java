@@ -0,0 +1,93 @@
+package Algorithm;
+
+/**
+ * Fast path for the bulk searches of long texts: jump between occurrences of the pattern's rarest
+ * character, and only compare the pattern where one lines up.
+ * <br>The jumps use <code>String.indexOf(char)</code>, which HotSpot compiles to a SIMD loop checking 16 to
+ * 64 characters per instruction, depending on what the CPU supports. Each candidate is checked against the
+ * pattern's first and last characters before the whole of it is compared with <code>regionMatches</code>,
+ * itself vectorised. If the rare character turns out to be common in some part of the text, the rest of
+ * the search is handed to the engine's own loop, so the filter never costs much more than it saves.
+ */
+final class CandidateFilter {
+    static final int MIN_TEXT_LENGTH = 1 << 12;  // shorter texts are searched faster than they can be sampled
+    static final int SAMPLE_SIZE = 4096;
+    static final int MAX_DENSITY = 16;   // give up once candidates average more than one per this many characters
+    static final int GRACE = 64;         // candidates allowed before the density is judged
+    static final int NONE = -1;
+    static final int UNCHOSEN = -2;
+
+    private CandidateFilter() {  }
+
+    /**
+     * The engine's own loop, to finish the search with
+     */
+    @FunctionalInterface
+    interface Scan {
+        /**
+         * Report every match lying entirely within <code>text[from, to)</code>
+         * @return number of matches found
+         */
+        int scan(int from, int to, Matches out, int limit);
+    }
+
+    /**
+     * Choose the pattern character to scan for, judging how rare each is from an evenly spaced sample
+     * of the text
+     * @return index in the pattern of the character to scan for, or {@link #NONE} if the filter would not
+     *         pay off for this text and pattern
+     */
+    static int anchor(String text, String patt) {
+        if (text.length() < MIN_TEXT_LENGTH || patt.length() < 2) return NONE;
+
+        CharIntMap id = new CharIntMap(patt, -1);
+        for (int i = 0; i < patt.length(); i ++)
+            if (!id.containsKey(patt.charAt(i))) id.put(patt.charAt(i), id.size());
+
+        int n = Math.min(text.length(), SAMPLE_SIZE);
+        int[] freq = new int[id.size()];
+        for (int i = 0; i < n; i ++) {
+            int c = id.get(text.charAt((int) ((long) i * text.length() / n)));
+            if (c >= 0) freq[c] ++;
+        }
+
+        // ties go to the later character, which is less likely to share a run with the first
+        int best = patt.length() - 1;
+        for (int i = patt.length() - 2; i >= 0; i --)
+            if (freq[id.get(patt.charAt(i))] < freq[id.get(patt.charAt(best))]) best = i;
+        return (long) freq[id.get(patt.charAt(best))] * MAX_DENSITY > n ? NONE : best;
+    }
+
+    /**
+     * Report every match lying entirely within <code>text[from, to)</code>
+     * @param anchor index in the pattern of the character to scan for, from {@link #anchor}
+     * @param out receives the match offsets, or null if only counting
+     * @param limit stop after this many matches
+     * @param fallback the engine's loop, which takes over if candidates are too dense
+     * @return number of matches found
+     */
+    static int scan(String text, int from, int to, String patt, int anchor, Matches out, int limit,
+                    Scan fallback) {
+        final int m = patt.length();
+        final char a = patt.charAt(anchor);
+        final char first = patt.charAt(0);
+        final char last = patt.charAt(m - 1);
+        if (from > to - m) return 0;  // also keeps from + anchor from overflowing
+
+        int count = 0;
+        int candidates = 0;
+        for (int p = text.indexOf(a, from + anchor); p >= 0; p = text.indexOf(a, p + 1)) {
+            int k = p - anchor;  // where the pattern would start
+            if (k > to - m) break;
+            // every match starting before k has been reported, so the engine can carry on from there
+            if (++candidates > (k - from) / MAX_DENSITY + GRACE)
+                return count + fallback.scan(k, to, out, limit - count);
+
+            if (text.charAt(k) == first && text.charAt(k + m - 1) == last && text.regionMatches(k, patt, 0, m)) {
+                if (out != null) out.add(k);
+                if (++count == limit) break;
+            }
+        }
+        return count;
+    }
+}
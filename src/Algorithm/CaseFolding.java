@@ -0,0 +1,79 @@
+package Algorithm;
+
+/**
+ * How characters are folded before they are compared, so that a search can ignore case without
+ * making a lower case copy of the text.
+ * <br>Folding never changes the number of UTF-16 units in a string, so match offsets are the same as
+ * in the unfolded text.
+ */
+public enum CaseFolding {
+    /** Characters must be equal */
+    NONE,
+    /** A-Z match a-z, every other character must be equal */
+    ASCII,
+    /**
+     * Unicode simple case folding, as in <code>String.equalsIgnoreCase</code>, applied to whole code points
+     * so that supplementary characters (such as Deseret or Osage letters) fold too
+     */
+    UNICODE;
+
+    /**
+     * @param s string to read from
+     * @param i index of a character of <code>s</code>
+     * @return folded character at index <code>i</code>; for half of a surrogate pair, the same half of the
+     *         folded code point
+     */
+    char fold(CharSequence s, int i) {
+        char c = s.charAt(i);
+        return switch (this) {
+            case NONE -> c;
+            case ASCII -> asciiFold(c);
+            case UNICODE -> Character.isSurrogate(c) ? foldSurrogate(s, i, c) : Table.FOLD[c];
+        };
+    }
+
+    /**
+     * @return a copy of the string with every character folded
+     */
+    String fold(String s) {
+        if (this == NONE) return s;
+        char[] folded = new char[s.length()];
+        for (int i = 0; i < s.length(); i ++) folded[i] = fold(s, i);
+        return new String(folded);
+    }
+
+    /**
+     * Branch free, since mixed case text would make a branch unpredictable
+     */
+    private static char asciiFold(char c) {
+        int d = c - 'A';
+        int upper = (d - 26 >>> 31) & (~d >>> 31);  // 1 if c is in A-Z
+        return (char) (c | upper << 5);
+    }
+
+    private static char foldSurrogate(CharSequence s, int i, char c) {
+        int cp;
+        if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1)))
+            cp = Character.toCodePoint(c, s.charAt(i + 1));
+        else if (Character.isLowSurrogate(c) && i > 0 && Character.isHighSurrogate(s.charAt(i - 1)))
+            cp = Character.toCodePoint(s.charAt(i - 1), c);
+        else return c;  // unpaired
+
+        int folded = Character.toLowerCase(Character.toUpperCase(cp));
+        if (!Character.isSupplementaryCodePoint(folded)) return c;
+        return Character.isHighSurrogate(c) ? Character.highSurrogate(folded) : Character.lowSurrogate(folded);
+    }
+
+    /**
+     * Folded form of every BMP character, built the first time Unicode folding is used
+     */
+    private static final class Table {
+        static final char[] FOLD = new char[Character.MAX_VALUE + 1];
+        static {
+            for (int c = 0; c <= Character.MAX_VALUE; c ++) {
+                int folded = Character.toLowerCase(Character.toUpperCase(c));
+                FOLD[c] = Character.isBmpCodePoint(folded) ? (char) folded : (char) c;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package Algorithm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Primitive map from <code>char</code> to <code>int</code>, with a default value for absent keys.
+ * <br>If every key fits in Latin-1 the values live in a dense 256 entry table, otherwise they live in
+ * a compact open-addressing hash table sized for the keys it was created with.
+ * Lookups never box or allocate.
+ */
+public final class CharIntMap {
+    private static final int DENSE_SIZE = 256;
+    private static final int EMPTY = -1;
+
+    private final int defaultValue;
+    private final int[] dense;   // direct table indexed by char, null in hashed mode
+    private final long[] present;  // bitmap of the dense table entries that have been put
+    private final int[] keys;    // hashed slots holding a char, or EMPTY; null in dense mode
+    private final int[] values;  // values for the hashed slots
+    private final int mask;
+
+    private char[] order = new char[8];  // distinct keys, in order of first insertion
+    private int size = 0;
+
+    /**
+     * Create an empty map able to hold every character of <code>keys</code>
+     * @param keys every character that may later be put into the map
+     * @param defaultValue value returned for characters that aren't in the map
+     */
+    CharIntMap(CharSequence keys, int defaultValue) {
+        this.defaultValue = defaultValue;
+
+        if (latin1(keys)) {
+            dense = new int[DENSE_SIZE];
+            Arrays.fill(dense, defaultValue);
+            present = new long[DENSE_SIZE / Long.SIZE];
+            this.keys = null;
+            values = null;
+            mask = 0;
+        } else {
+            int capacity = capacity(keys);
+            dense = null;
+            present = null;
+            this.keys = new int[capacity];
+            Arrays.fill(this.keys, EMPTY);
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    /**
+     * @param c character to look up
+     * @return the value stored for <code>c</code>, or the default value if there is none
+     */
+    public int get(char c) {
+        if (dense != null) return c < DENSE_SIZE ? dense[c] : defaultValue;
+
+        for (int slot = hash(c) & mask; ; slot = (slot + 1) & mask) {
+            int k = keys[slot];
+            if (k == c) return values[slot];
+            if (k == EMPTY) return defaultValue;
+        }
+    }
+
+    /**
+     * Set the value for a character, which must be one of the keys this map was created for
+     */
+    void put(char c, int value) {
+        if (dense != null) {
+            if (c >= DENSE_SIZE) throw new IllegalArgumentException("Character outside of map key set: " + c);
+            if (!containsKey(c)) {
+                present[c >>> 6] |= 1L << c;
+                remember(c);
+            }
+            dense[c] = value;
+            return;
+        }
+
+        int slot = hash(c) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != c) slot = (slot + 1) & mask;
+        if (keys[slot] == EMPTY) {
+            if (size == mask / 2 + 1) throw new IllegalArgumentException("Character outside of map key set: " + c);
+            keys[slot] = c;
+            remember(c);
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * @return whether a value has been put for this character
+     */
+    public boolean containsKey(char c) {
+        if (dense != null) return c < DENSE_SIZE && (present[c >>> 6] & 1L << c) != 0;
+
+        for (int slot = hash(c) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == c) return true;
+            if (keys[slot] == EMPTY) return false;
+        }
+    }
+
+    /**
+     * @return number of distinct characters in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return value returned for characters that aren't in the map
+     */
+    public int defaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * @return an unmodifiable boxed copy of this map, in key insertion order
+     */
+    public Map<Character, Integer> asMap() {
+        Map<Character, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) map.put(order[i], get(order[i]));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @param keys every character that may be put into the map
+     * @return approximate number of bytes held by a map created for <code>keys</code> once they are all put,
+     *         without creating it
+     */
+    static long weight(CharSequence keys) {
+        long tables = latin1(keys)
+                ? 4L * DENSE_SIZE + 8L * (DENSE_SIZE / Long.SIZE)
+                : 8L * capacity(keys);
+        return tables + 2L * Math.max(8, keys.length());  // plus the key insertion order
+    }
+
+    private static boolean latin1(CharSequence keys) {
+        for (int i = 0; i < keys.length(); i++) if (keys.charAt(i) >= DENSE_SIZE) return false;
+        return true;
+    }
+
+    /**
+     * @return number of hashed slots for <code>keys</code>, a power of two
+     */
+    private static int capacity(CharSequence keys) {
+        // keep the load factor at or below one half so probe chains stay short
+        return Integer.highestOneBit(Math.max(2, keys.length()) * 2 - 1) << 1;
+    }
+
+    private void remember(char c) {
+        if (size == order.length) order = Arrays.copyOf(order, size << 1);
+        order[size++] = c;
+    }
+
+    private static int hash(char c) {
+        return c * 0x9E3779B1 >>> 16;
+    }
+}
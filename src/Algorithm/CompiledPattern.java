@@ -0,0 +1,110 @@
+package Algorithm;
+
+import java.util.Map;
+
+/**
+ * A pattern together with every preprocessing table the search engines need for it.
+ * <br>Each table is built the first time an engine asks for it, so a KMP search never builds the
+ * Boyer-Moore tables and the reverse. Instances are otherwise immutable, so one compiled pattern can be
+ * shared across texts and threads.
+ * Use {@link #of(String)} to go through the shared {@link PatternCache}, so repeated patterns skip
+ * preprocessing entirely.
+ */
+public final class CompiledPattern {
+    private final String patt;
+    // built on first use; two threads racing to build one only duplicate the work
+    private volatile int[] match;          // KMP partial match table
+    private volatile CharIntMap badChar;   // Boyer-Moore bad character rule
+    private volatile int[] goodSuffix;     // Boyer-Moore good suffix rule
+
+    private CompiledPattern(String patt) {
+        this.patt = patt;
+    }
+
+    /**
+     * Compile a pattern, skipping the cache
+     * @param patt pattern to compile
+     * @return a newly compiled pattern
+     */
+    public static CompiledPattern compile(String patt) {
+        return new CompiledPattern(patt);
+    }
+
+    /**
+     * Compile a pattern through the shared cache
+     * @param patt pattern to compile
+     * @return the cached compiled pattern if there is one, otherwise a newly compiled and cached one
+     */
+    public static CompiledPattern of(String patt) {
+        return PatternCache.shared().get(patt);
+    }
+
+    /**
+     * Check that a pattern is made of whole code points
+     * @throws IllegalArgumentException if the pattern contains an unpaired surrogate
+     */
+    static void requireWellFormed(String patt) {
+        for (int i = 0; i < patt.length(); i ++) {
+            char c = patt.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < patt.length() && Character.isLowSurrogate(patt.charAt(i + 1)))
+                i ++;
+            else if (Character.isSurrogate(c))
+                throw new IllegalArgumentException("Unpaired surrogate at index " + i + " of pattern");
+        }
+    }
+
+    public String patt() {
+        return patt;
+    }
+
+    /**
+     * @return a copy of the KMP partial match table
+     */
+    public int[] partialMatchTable() {
+        return match().clone();
+    }
+
+    /**
+     * @return a copy of the Boyer-Moore good suffix table
+     */
+    public int[] goodSuffixTable() {
+        return goodSuffix().clone();
+    }
+
+    /**
+     * @return the Boyer-Moore bad character jumps, as a boxed map
+     */
+    public Map<Character, Integer> badCharDict() {
+        return badChar().asMap();
+    }
+
+    /**
+     * @return approximate number of bytes held by the pattern and its tables once all of them are built,
+     *         used to bound the cache. Fixed from the start, so the cache's total never drifts as tables
+     *         are built.
+     */
+    public long weight() {
+        final int m = patt.length();
+        return 2L * m + 4L * (m + 1) + 4L * m + CharIntMap.weight(patt);
+    }
+
+    // shared tables, which the engines must not modify
+
+    int[] match() {
+        int[] t = match;
+        if (t == null) match = t = KMP.partialMatchTable(patt);
+        return t;
+    }
+
+    CharIntMap badChar() {
+        CharIntMap t = badChar;
+        if (t == null) badChar = t = BoyerMoore.badCharTable(patt);
+        return t;
+    }
+
+    int[] goodSuffix() {
+        int[] t = goodSuffix;
+        if (t == null) goodSuffix = t = BoyerMoore.goodSuffix(patt);
+        return t;
+    }
+}
@@ -0,0 +1,6 @@
+package Algorithm;
+
+/**
+ * Single pattern search engines that can be run outside of the step-by-step <code>SearchAlgorithm</code> API.
+ */
+public enum Engine { KMP, BOYER_MOORE }
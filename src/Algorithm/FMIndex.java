@@ -0,0 +1,336 @@
+package Algorithm;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * FM-index over a fixed text: its Burrows-Wheeler transform held as a wavelet matrix, and a sampled suffix
+ * array.
+ * <br>Counting the matches of a pattern takes O(m log &sigma;) steps of backward search, for an alphabet of
+ * &sigma; characters, whatever the length of the text. Each match is then located by walking back to the
+ * nearest sampled suffix, at most <code>sampleRate - 1</code> steps of O(log &sigma;) each. A sample rate of
+ * 1 keeps the whole suffix array (4 bytes per character) for the fastest locates, while larger rates trade
+ * locate speed for memory.
+ * <br>The wavelet matrix stores one bit per character for each bit of a symbol, so occurrences are counted
+ * with a popcount per bit of the symbol rather than by scanning the transform, however large the alphabet.
+ * <br>Tables are held in NIO buffers, so an index can equally live on the heap or in a mapped file,
+ * see {@link IndexFile}.
+ */
+public final class FMIndex {
+    public static final int DEFAULT_SAMPLE_RATE = 16;
+
+    private final int length;       // length of the text; the transform has one more row, for the sentinel
+    private final int sampleRate;   // every text position divisible by this has its suffix array entry kept
+    private final int symbols;      // alphabet size, including the sentinel as symbol 0
+    private final int levels;       // bits per symbol, one wavelet matrix level each, most significant first
+    private final int words;        // longs per level, enough to rank up to and including the last row
+    private final CharBuffer alphabet;   // text characters in order; symbol s is alphabet[s - 1]
+    private final IntBuffer before;      // before[s] -> number of rows whose first symbol is less than s
+    private final LongBuffer levelBits;  // levelBits[l * words + w] -> word w of level l's bits
+    private final IntBuffer levelRanks;  // levelRanks[l * words + w] -> set bits in level l's words before w
+    private final IntBuffer zeros;       // zeros[l] -> clear bits in level l, where the set bits' rows start
+    private final LongBuffer sampled;    // bit per row, set if the row's suffix array entry is kept
+    private final IntBuffer sampledRank; // sampledRank[w] -> set bits in sampled words before w
+    private final IntBuffer samples;     // kept suffix array entries, in row order
+
+    FMIndex(int length, int sampleRate, CharBuffer alphabet, IntBuffer before, LongBuffer levelBits,
+            IntBuffer levelRanks, IntBuffer zeros, LongBuffer sampled, IntBuffer sampledRank, IntBuffer samples) {
+        this.length = length;
+        this.sampleRate = sampleRate;
+        this.symbols = alphabet.limit() + 1;
+        this.levels = zeros.limit();
+        this.words = words(length + 1);
+        this.alphabet = alphabet;
+        this.before = before;
+        this.levelBits = levelBits;
+        this.levelRanks = levelRanks;
+        this.zeros = zeros;
+        this.sampled = sampled;
+        this.sampledRank = sampledRank;
+        this.samples = samples;
+    }
+
+    /**
+     * Build the index for a text, keeping every {@value #DEFAULT_SAMPLE_RATE}th suffix array entry
+     * @param text text to index
+     * @return index over the text
+     */
+    public static FMIndex build(String text) {
+        return build(text, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Build the index for a text
+     * @param text text to index
+     * @param sampleRate keep the suffix array entry of every text position divisible by this; 1 keeps all
+     * @return index over the text
+     */
+    public static FMIndex build(String text, int sampleRate) {
+        if (sampleRate < 1) throw new IllegalArgumentException("Sample rate must be at least 1");
+        final int n = text.length();
+        if (n == Integer.MAX_VALUE) throw new IllegalArgumentException("Text too long to index");
+
+        // map characters to dense symbols 1..sigma in character order, leaving 0 for the sentinel
+        char[] chars = text.toCharArray();
+        boolean[] present = new boolean[Character.MAX_VALUE + 1];
+        for (char c : chars) present[c] = true;
+        int sigma = 0;
+        for (boolean p : present) if (p) sigma ++;
+        if (sigma == Character.MAX_VALUE + 1)
+            throw new IllegalArgumentException("Text uses every character, leaving no symbol for the sentinel");
+        char[] alphabet = new char[sigma];
+        int[] symbolOf = new int[Character.MAX_VALUE + 1];
+        for (int c = 0, s = 0; c <= Character.MAX_VALUE; c ++)
+            if (present[c]) {
+                alphabet[s] = (char) c;
+                symbolOf[c] = ++s;
+            }
+        int[] s = new int[n];
+        for (int i = 0; i < n; i ++) s[i] = symbolOf[chars[i]];
+
+        // the empty suffix (at the sentinel) sorts first, followed by the suffix array of the text
+        int[] sa = SuffixArray.build(s, sigma);
+        final int rows = n + 1;
+        final int symbols = sigma + 1;
+
+        int[] bwt = new int[rows];
+        int[] before = new int[symbols + 1];
+        long[] sampled = new long[(rows + 63) >>> 6];
+        Matches samples = new Matches();
+        for (int row = 0; row < rows; row ++) {
+            int pos = row == 0 ? n : sa[row - 1];
+            bwt[row] = pos == 0 ? 0 : s[pos - 1];
+            before[(pos == n ? 0 : s[pos]) + 1] ++;
+            if (pos % sampleRate == 0) {
+                sampled[row >>> 6] |= 1L << row;
+                samples.add(pos);
+            }
+        }
+        for (int i = 1; i <= symbols; i ++) before[i] += before[i - 1];
+
+        int[] sampledRank = new int[sampled.length];
+        for (int w = 1; w < sampled.length; w ++)
+            sampledRank[w] = sampledRank[w - 1] + Long.bitCount(sampled[w - 1]);
+
+        // each level holds one bit of every symbol, then stably moves the symbols with that bit clear to
+        // the front for the next level
+        final int levels = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(symbols - 1));
+        final int words = words(rows);
+        if ((long) levels * words > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Text too large for wavelet matrix");
+        long[] levelBits = new long[levels * words];
+        int[] levelRanks = new int[levels * words];
+        int[] zeros = new int[levels];
+        int[] next = new int[rows];
+        for (int l = 0; l < levels; l ++) {
+            final int shift = levels - 1 - l;
+            final int base = l * words;
+            int z = 0;
+            for (int row = 0; row < rows; row ++) {
+                if ((bwt[row] >>> shift & 1) != 0) levelBits[base + (row >>> 6)] |= 1L << row;
+                else z ++;
+            }
+            for (int w = 1; w < words; w ++)
+                levelRanks[base + w] = levelRanks[base + w - 1] + Long.bitCount(levelBits[base + w - 1]);
+            zeros[l] = z;
+
+            int zi = 0, oi = z;
+            for (int row = 0; row < rows; row ++) {
+                if ((bwt[row] >>> shift & 1) == 0) next[zi ++] = bwt[row];
+                else next[oi ++] = bwt[row];
+            }
+            int[] swap = bwt;
+            bwt = next;
+            next = swap;
+        }
+
+        return new FMIndex(n, sampleRate, CharBuffer.wrap(alphabet), IntBuffer.wrap(before),
+                LongBuffer.wrap(levelBits), IntBuffer.wrap(levelRanks), IntBuffer.wrap(zeros),
+                LongBuffer.wrap(sampled), IntBuffer.wrap(sampledRank), IntBuffer.wrap(samples.toArray()));
+    }
+
+    /**
+     * @return longs per wavelet matrix level for a transform of this many rows
+     */
+    static int words(int rows) {
+        return (rows >>> 6) + 1;
+    }
+
+    /**
+     * @return length of the indexed text
+     */
+    public int length() {
+        return length;
+    }
+
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    int levels() {
+        return levels;
+    }
+
+    // tables, as read-only views for IndexFile to write out
+
+    CharBuffer alphabet() {
+        return alphabet.asReadOnlyBuffer();
+    }
+
+    IntBuffer before() {
+        return before.asReadOnlyBuffer();
+    }
+
+    LongBuffer levelBits() {
+        return levelBits.asReadOnlyBuffer();
+    }
+
+    IntBuffer levelRanks() {
+        return levelRanks.asReadOnlyBuffer();
+    }
+
+    IntBuffer zeros() {
+        return zeros.asReadOnlyBuffer();
+    }
+
+    LongBuffer sampled() {
+        return sampled.asReadOnlyBuffer();
+    }
+
+    IntBuffer sampledRank() {
+        return sampledRank.asReadOnlyBuffer();
+    }
+
+    IntBuffer samples() {
+        return samples.asReadOnlyBuffer();
+    }
+
+    /**
+     * @param patt pattern to search for
+     * @return number of times the pattern occurs in the text, counting overlapping matches
+     */
+    public int count(String patt) {
+        if (patt.isEmpty()) return 0;
+        long range = range(patt);
+        return (int) range - (int) (range >>> 32);
+    }
+
+    /**
+     * @param patt pattern to search for
+     * @return offset of every match of the pattern in the text, in increasing order
+     */
+    public int[] locate(String patt) {
+        if (patt.isEmpty()) return new int[0];
+        long range = range(patt);
+        int first = (int) (range >>> 32), end = (int) range;
+
+        int[] offsets = new int[end - first];
+        for (int row = first; row < end; row ++) offsets[row - first] = position(row);
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    /**
+     * Find the first match at or after an offset. Rows are in suffix order, not text order, so this still
+     * locates every match, at up to <code>sampleRate - 1</code> steps each; it only saves keeping and sorting
+     * them as {@link #locate} does.
+     * @param patt pattern to search for
+     * @param from index of the text to start searching from
+     * @return offset of the first match starting at or after <code>from</code>, or -1 if there is none
+     */
+    public int locateFirst(String patt, int from) {
+        if (patt.isEmpty()) return -1;
+        long range = range(patt);
+        int first = -1;
+        for (int row = (int) (range >>> 32); row < (int) range; row ++) {
+            int pos = position(row);
+            if (pos >= from && (first < 0 || pos < first)) first = pos;
+        }
+        return first;
+    }
+
+    /**
+     * Backward search: narrow the rows prefixed by ever longer suffixes of the pattern
+     * @return first row in the high 32 bits, and one past the last row in the low 32 bits
+     */
+    private long range(String patt) {
+        int first = 0, end = length + 1;
+        for (int i = patt.length() - 1; i >= 0 && first < end; i --) {
+            int s = symbolOf(patt.charAt(i));
+            if (s == 0) return 0;
+            first = before.get(s) + rank(s, first);
+            end = before.get(s) + rank(s, end);
+        }
+        return first < end ? (long) first << 32 | end : 0;
+    }
+
+    /**
+     * Text position of the suffix in a row, by walking back through the text to a sampled row
+     */
+    private int position(int row) {
+        int steps = 0;
+        while ((sampled.get(row >>> 6) & 1L << row) == 0) {
+            int s = symbolAt(row);
+            row = before.get(s) + rank(s, row);
+            steps ++;
+        }
+        long word = sampled.get(row >>> 6) & (1L << row) - 1;
+        return samples.get(sampledRank.get(row >>> 6) + Long.bitCount(word)) + steps;
+    }
+
+    /**
+     * @return occurrences of symbol <code>s</code> in <code>bwt[0, row)</code>
+     */
+    private int rank(int s, int row) {
+        // follow the rows before row holding symbols that agree with s in every bit so far
+        int lo = 0, hi = row;
+        for (int l = 0; l < levels; l ++) {
+            if ((s >>> levels - 1 - l & 1) == 0) {
+                lo -= ones(l, lo);
+                hi -= ones(l, hi);
+            } else {
+                lo = zeros.get(l) + ones(l, lo);
+                hi = zeros.get(l) + ones(l, hi);
+            }
+        }
+        return hi - lo;
+    }
+
+    /**
+     * @return symbol of the transform at a row, read one bit per level
+     */
+    private int symbolAt(int row) {
+        int s = 0;
+        for (int l = 0; l < levels; l ++) {
+            long bit = levelBits.get(l * words + (row >>> 6)) >>> row & 1;
+            s = s << 1 | (int) bit;
+            row = bit == 0 ? row - ones(l, row) : zeros.get(l) + ones(l, row);
+        }
+        return s;
+    }
+
+    /**
+     * @return set bits of level <code>l</code> before <code>row</code>
+     */
+    private int ones(int l, int row) {
+        int w = l * words + (row >>> 6);
+        return levelRanks.get(w) + Long.bitCount(levelBits.get(w) & (1L << row) - 1);
+    }
+
+    /**
+     * @return symbol for a character, or 0 if it does not occur in the text
+     */
+    private int symbolOf(char c) {
+        int lo = 0, hi = symbols - 2;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char a = alphabet.get(mid);
+            if (a < c) lo = mid + 1;
+            else if (a > c) hi = mid - 1;
+            else return mid + 1;
+        }
+        return 0;
+    }
+}
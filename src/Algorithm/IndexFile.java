@@ -0,0 +1,137 @@
+package Algorithm;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file format for an {@link FMIndex}, written once and then opened by memory mapping.
+ * <br>An opened index answers queries straight off the mapping: nothing is read onto the heap, the operating
+ * system pages tables in as queries touch them, and processes opening the same file share its page cache.
+ * <br>Layout, all little endian: a {@value #HEADER_SIZE} byte header of ints (magic, version, text length,
+ * sample rate, wavelet matrix levels, alphabet size, sampled row words, sample count), then the alphabet,
+ * row counts, wavelet matrix bits, wavelet matrix ranks, wavelet matrix zero counts, sampled row bits,
+ * sampled row ranks and samples, each starting on an 8 byte boundary. Each table must be under 2GB.
+ * <br>Version 1 held the transform with occurrence checkpoints instead of a wavelet matrix, and is no longer
+ * read.
+ */
+public final class IndexFile {
+    public static final int MAGIC = 0x58494D46;  // "FMIX" read as little endian
+    public static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+
+    private IndexFile() {  }
+
+    /**
+     * Write an index to a file, replacing anything already there
+     * @param index index to write
+     * @param file file to write to
+     */
+    public static void write(FMIndex index, Path file) throws IOException {
+        Buffer[] tables = { index.alphabet(), index.before(), index.levelBits(), index.levelRanks(),
+                index.zeros(), index.sampled(), index.sampledRank(), index.samples() };
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION)
+                .putInt(index.length()).putInt(index.sampleRate()).putInt(index.levels())
+                .putInt(tables[0].limit()).putInt(tables[5].limit()).putInt(tables[7].limit())
+                .clear();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            for (Buffer table : tables) {
+                long size = align(sizeOf(table));
+                if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("Index table over 2GB");
+                ByteBuffer bytes = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+                switch (table) {
+                    case CharBuffer c -> bytes.asCharBuffer().put(c);
+                    case IntBuffer i -> bytes.asIntBuffer().put(i);
+                    case LongBuffer l -> bytes.asLongBuffer().put(l);
+                    default -> throw new IllegalStateException("Unexpected table type " + table.getClass());
+                }
+                writeFully(channel, bytes);
+            }
+        }
+    }
+
+    /**
+     * Open an index file by memory mapping it. The mapping stays valid after this returns, until the index
+     * is garbage collected.
+     * @param file file written by {@link #write}
+     * @return index reading its tables from the mapped file
+     * @throws IOException if the file cannot be read, or is not an index file of this version
+     */
+    public static FMIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException(file + " is not an index file");
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) throw new IOException(file + " is not an index file");
+            int version = header.getInt(4);
+            if (version != VERSION)
+                throw new IOException(file + " has index format version " + version + ", expected " + VERSION);
+            int length = header.getInt(8);
+            int sampleRate = header.getInt(12);
+            int levels = header.getInt(16);
+            int sigma = header.getInt(20);
+            int sampledWords = header.getInt(24);
+            int sampleCount = header.getInt(28);
+            if (length < 0 || length == Integer.MAX_VALUE || sampleRate < 1 || sigma < 0 || sampleCount < 0
+                    || levels != Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(sigma))
+                    || sampledWords != (int) ((length + 64L) >>> 6))
+                throw new IOException(file + " has an inconsistent header");
+            long levelWords = (long) levels * FMIndex.words(length + 1);
+
+            long[] sizes = { 2L * sigma, 4L * (sigma + 2), 8L * levelWords, 4L * levelWords, 4L * levels,
+                    8L * sampledWords, 4L * sampledWords, 4L * sampleCount };
+            long expected = HEADER_SIZE;
+            for (long s : sizes) {
+                if (s > Integer.MAX_VALUE) throw new IOException(file + " has a table over 2GB");
+                expected += align(s);
+            }
+            if (expected != size)
+                throw new IOException(file + " is " + size + " bytes, but its header describes " + expected);
+
+            ByteBuffer[] tables = new ByteBuffer[sizes.length];
+            long pos = HEADER_SIZE;
+            for (int t = 0; t < sizes.length; t ++) {
+                tables[t] = channel.map(FileChannel.MapMode.READ_ONLY, pos, sizes[t]).order(ByteOrder.LITTLE_ENDIAN);
+                pos += align(sizes[t]);
+            }
+
+            return new FMIndex(length, sampleRate, tables[0].asCharBuffer(), tables[1].asIntBuffer(),
+                    tables[2].asLongBuffer(), tables[3].asIntBuffer(), tables[4].asIntBuffer(),
+                    tables[5].asLongBuffer(), tables[6].asIntBuffer(), tables[7].asIntBuffer());
+        }
+    }
+
+    private static long sizeOf(Buffer table) {
+        return switch (table) {
+            case CharBuffer c -> 2L * c.limit();
+            case IntBuffer i -> 4L * i.limit();
+            case LongBuffer l -> 8L * l.limit();
+            default -> throw new IllegalStateException("Unexpected table type " + table.getClass());
+        };
+    }
+
+    /**
+     * @return size rounded up to a multiple of 8
+     */
+    private static long align(long size) {
+        return size + 7 & ~7L;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) channel.write(bytes);
+    }
+}
@@ -0,0 +1,111 @@
+package Algorithm;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Search for many patterns against one fixed text, through an {@link FMIndex} over the text.
+ * <br>The index is built once, the first time a complete search needs it, and kept while the text is set to
+ * the same <code>String</code>.
+ * After that each count costs O(m log &sigma;) for an alphabet of &sigma; characters, and each locate a few
+ * steps per match, without rescanning the text.
+ * Stepping through a search still runs KMP, so the visualisation is unchanged.
+ */
+public class IndexedSearch implements SearchAlgorithm {
+    private final KMP kmp = new KMP();
+    private final int sampleRate;
+    private FMIndex index = null;
+
+    public IndexedSearch() {
+        this(FMIndex.DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * @param sampleRate suffix array sampling of the index; 1 for the fastest locates, higher to save memory
+     */
+    public IndexedSearch(int sampleRate) {
+        if (sampleRate < 1) throw new IllegalArgumentException("Sample rate must be at least 1");
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public boolean ready() {
+        return kmp.ready();
+    }
+
+    @Override
+    public State state() {
+        return kmp.state();
+    }
+
+    @Override
+    public @NotNull CharSequence text() {
+        return kmp.text();
+    }
+
+    @Override
+    public @NotNull String patt() {
+        return kmp.patt();
+    }
+
+    @Override
+    public void setText(CharSequence s) {
+        // the same String can't have changed, but any other text may have been changed in place
+        if (!(s instanceof String && s == kmp.text())) index = null;
+        kmp.setText(s);
+    }
+
+    @Override
+    public void setPatt(String s) {
+        kmp.setPatt(s);
+    }
+
+    /**
+     * @return the index over the current text, building it if this is the first time it is needed
+     */
+    public FMIndex index() {
+        if (index == null) index = FMIndex.build(kmp.text().toString(), sampleRate);
+        return index;
+    }
+
+    @Override
+    public int pattOffset() {
+        return kmp.pattOffset();
+    }
+
+    @Override
+    public @NotNull MatchInfo step() {
+        return kmp.step();
+    }
+
+    @Override
+    public int findFirst(int from) {
+        if (kmp.patt().isEmpty()) return -1;
+        if (stats() != null) stats().compared(kmp.patt().length());
+        return index().locateFirst(kmp.patt(), Math.max(0, from));
+    }
+
+    @Override
+    public int @NotNull [] findAll() {
+        if (kmp.patt().isEmpty()) return new int[0];
+        if (stats() != null) stats().compared(kmp.patt().length());
+        return index().locate(kmp.patt());
+    }
+
+    @Override
+    public int count() {
+        if (kmp.patt().isEmpty()) return 0;
+        if (stats() != null) stats().compared(kmp.patt().length());
+        return index().count(kmp.patt());
+    }
+
+    @Override
+    public void setStats(@Nullable SearchStats stats) {
+        kmp.setStats(stats);
+    }
+
+    @Override
+    public @Nullable SearchStats stats() {
+        return kmp.stats();
+    }
+}
@@ -1,19 +1,35 @@
 package Algorithm;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.CharBuffer;
 
 /**
  * Knuth-Morris-Pratt string search algorithm.
+ * <br>Optionally ignores case, see {@link #setCaseFolding}, by folding the pattern once and each text
+ * character as it is compared.
  */
 public class KMP implements SearchAlgorithm {
-    private String text = "";
+    private CharSequence text = "";
+    private String string = "";    // text, if it is a String
+    private char[] chars = null;   // array holding text, if it is an array backed CharBuffer
+    private byte[] latin1 = null;  // array holding text, if it is Latin-1 bytes
+    private int offset = 0;        // index of the start of text in chars or latin1
     private String patt = "";
-    private int[] match;
+    private String key = "";  // patt with its case folded, as compared against the text
+    private CompiledPattern compiled = CompiledPattern.of("");
+    private int[] match = compiled.match();
 
     private int k = 0;  // start of current match in text
     private int i = 0;  // position of current character in patt
     private int pattOffset = 0;
 
+    private CaseFolding folding = CaseFolding.NONE;
+    private boolean codePoints = false;
+    private int anchor = CandidateFilter.UNCHOSEN;  // pattern character the bulk searches scan for
+    private SearchStats stats = null;
+
     @Override
     public boolean ready() {
         return !(text.isEmpty() || patt.isEmpty()) && state() == State.IN_PROGRESS;
@@ -25,18 +41,36 @@ public class KMP implements SearchAlgorithm {
                 || patt.length() > text.length()
                 || k + patt.length() > text.length())
             return State.NO_MATCH;
-        if (i == patt.length() && patt.charAt(i-1) == text.charAt(k+i - 1)) return State.MATCH_FOUND;
+        if (i == patt.length() && key.charAt(i-1) == folding.fold(text, k+i - 1)) return State.MATCH_FOUND;
         return State.IN_PROGRESS;
     }
 
     @Override
-    public @NotNull String text() {
+    public @NotNull CharSequence text() {
         return text;
     }
 
     @Override
-    public void setText(String s) {
+    public void setText(CharSequence s) {
         text = s;
+        string = null;
+        chars = null;
+        latin1 = null;
+        offset = 0;
+        // remember how the text is held, to pick the loop specialised for it
+        switch (s) {
+            case String str -> string = str;
+            case CharBuffer buf when buf.hasArray() -> {
+                chars = buf.array();
+                offset = buf.arrayOffset() + buf.position();
+            }
+            case Latin1Text t -> {
+                latin1 = t.bytes();
+                offset = t.offset();
+            }
+            default -> { }
+        }
+        anchor = CandidateFilter.UNCHOSEN;
         restart();
     }
 
@@ -47,17 +81,55 @@ public class KMP implements SearchAlgorithm {
 
     @Override
     public void setPatt(String s) {
+        if (codePoints) CompiledPattern.requireWellFormed(s);
         patt = s;
+        key = folding.fold(s);
+        compiled = CompiledPattern.of(key);
+        match = compiled.match();
+        anchor = CandidateFilter.UNCHOSEN;
         restart();
     }
 
+    /**
+     * Choose how characters are folded before comparing them. The text is not copied, each character is
+     * folded as the search reaches it.
+     * @param folding case folding to compare with, <code>NONE</code> for an exact search
+     */
+    public void setCaseFolding(CaseFolding folding) {
+        this.folding = folding;
+        setPatt(patt);
+    }
+
+    public CaseFolding caseFolding() {
+        return folding;
+    }
+
+    /**
+     * Choose whether the pattern must be whole code points. A pattern without unpaired surrogates can
+     * only match whole code points of the text, so no match splits a surrogate pair.
+     * @param b true to reject patterns containing unpaired surrogates
+     * @throws IllegalArgumentException if turning this on while the pattern has an unpaired surrogate
+     */
+    public void setCodePoints(boolean b) {
+        if (b) CompiledPattern.requireWellFormed(patt);
+        codePoints = b;
+    }
+
+    public boolean codePoints() {
+        return codePoints;
+    }
+
     public void restart() {
         k = 0;
         i = 0;
         pattOffset = 0;
+    }
 
-        if (!ready()) return;
-        match = KMP.partialMatchTable(patt);
+    /**
+     * @return the current pattern with its preprocessing tables
+     */
+    public CompiledPattern compiled() {
+        return compiled;
     }
 
     @Override
@@ -70,6 +142,7 @@ public class KMP implements SearchAlgorithm {
         pattOffset = k;
         MatchInfo ret = new MatchInfo(k + i, i, false);
         if (k + i < text.length()) {
+            if (stats != null) stats.compared(1);
             // match
             if (charMatch()) {
                 ret = new MatchInfo(k + i, i, true);
@@ -77,11 +150,13 @@ public class KMP implements SearchAlgorithm {
             }
             // mismatch, no self overlap
             else if (match[i] == -1) {
+                if (stats != null) stats.shifted(i + 1);
                 k += i + 1;  // move forward
                 i = 0;       // start again
             }
             // mismatch with self overlap
             else {
+                if (stats != null) stats.shifted(i - match[i]);
                 k += i - match[i];  // match position jumps forward
                 i = match[i];       // continue char comparisons from after prefix
             }
@@ -89,8 +164,261 @@ public class KMP implements SearchAlgorithm {
         return ret;
     }
 
+    @Override
+    public int findFirst(int from) {
+        if (!searchable()) return -1;
+        if (folding != CaseFolding.NONE) {
+            Matches out = new Matches();
+            foldedScan(Math.max(0, from), out, 1);
+            return out.size() == 0 ? -1 : out.get(0);
+        }
+        if (stats != null) {
+            Matches out = new Matches();
+            countedScan(text, Math.max(0, from), text.length(), patt, match, out, 1, stats);
+            return out.size() == 0 ? -1 : out.get(0);
+        }
+        if (string == null || anchor() != CandidateFilter.NONE) {
+            Matches out = new Matches();
+            if (string == null) directScan(Math.max(0, from), out, 1);
+            else filteredScan(Math.max(0, from), out, 1);
+            return out.size() == 0 ? -1 : out.get(0);
+        }
+        return indexOf(string, Math.max(0, from), string.length(), patt, match);
+    }
+
+    @Override
+    public int @NotNull [] findAll() {
+        Matches out = new Matches();
+        if (!searchable()) return out.toArray();
+
+        if (folding != CaseFolding.NONE) foldedScan(0, out, Integer.MAX_VALUE);
+        else if (stats != null) countedScan(text, 0, text.length(), patt, match, out, Integer.MAX_VALUE, stats);
+        else if (string == null) directScan(0, out, Integer.MAX_VALUE);
+        else if (anchor() != CandidateFilter.NONE) filteredScan(0, out, Integer.MAX_VALUE);
+        else scan(string, 0, string.length(), patt, match, out, Integer.MAX_VALUE);
+        return out.toArray();
+    }
+
+    @Override
+    public int count() {
+        if (!searchable()) return 0;
+        if (folding != CaseFolding.NONE) return foldedScan(0, null, Integer.MAX_VALUE);
+        if (stats != null) return countedScan(text, 0, text.length(), patt, match, null, Integer.MAX_VALUE, stats);
+        if (string == null) return directScan(0, null, Integer.MAX_VALUE);
+        if (anchor() != CandidateFilter.NONE) return filteredScan(0, null, Integer.MAX_VALUE);
+        return scan(string, 0, string.length(), patt, match, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void setStats(@Nullable SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public @Nullable SearchStats stats() {
+        return stats;
+    }
+
+    /**
+     * @return whether the pattern could fit in the text
+     */
+    private boolean searchable() {
+        return !patt.isEmpty() && patt.length() <= text.length();
+    }
+
+    /**
+     * @return the pattern character to scan for in the bulk searches, or <code>CandidateFilter.NONE</code>
+     */
+    private int anchor() {
+        if (anchor == CandidateFilter.UNCHOSEN) anchor = CandidateFilter.anchor(string, patt);
+        return anchor;
+    }
+
+    /**
+     * Search through <code>CandidateFilter</code>, falling back to {@link #scan}
+     */
+    private int filteredScan(int from, Matches out, int limit) {
+        return CandidateFilter.scan(string, from, string.length(), patt, anchor, out, limit,
+                (f, t, o, l) -> scan(string, f, t, patt, match, o, l));
+    }
+
+    /**
+     * Search a text that isn't a String, through the loop for however it is held
+     */
+    private int directScan(int from, Matches out, int limit) {
+        if (chars != null) return scan(chars, offset, from, text.length(), patt, match, out, limit);
+        if (latin1 != null) return scan(latin1, offset, from, text.length(), patt, match, out, limit);
+        return scan(text, from, text.length(), patt, match, out, limit);
+    }
+
+    /**
+     * Search comparing folded characters, see {@link #setCaseFolding}
+     */
+    private int foldedScan(int from, Matches out, int limit) {
+        return foldedScan(text, from, text.length(), key, match, folding, out, limit, stats);
+    }
+
     private boolean charMatch() {
-        return patt.charAt(i) == text.charAt(k+i);
+        return key.charAt(i) == folding.fold(text, k+i);
+    }
+
+    /**
+     * Find the first match lying entirely within <code>text[from, to)</code>
+     * @param match partial match table of the pattern
+     * @return offset of the first match, or -1 if there is none
+     */
+    static int indexOf(String text, int from, int to, String patt, int[] match) {
+        final int m = patt.length();
+        int i = 0;  // position of current character in patt
+        for (int k = from; k < to; k++) {
+            final char c = text.charAt(k);
+            // fall back through the table until the character extends a prefix (or we run out of prefixes)
+            while (i >= 0 && patt.charAt(i) != c) i = match[i];
+            if (++i == m) return k - m + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Report every match lying entirely within <code>text[from, to)</code>
+     * @param match partial match table of the pattern
+     * @param out receives the match offsets, or null if only counting
+     * @param limit stop after this many matches
+     * @return number of matches found
+     */
+    static int scan(String text, int from, int to, String patt, int[] match, Matches out, int limit) {
+        final int m = patt.length();
+        int count = 0;
+        int i = 0;
+        for (int k = from; k < to; k++) {
+            final char c = text.charAt(k);
+            while (i >= 0 && patt.charAt(i) != c) i = match[i];
+            if (++i == m) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+                i = match[m];  // keep the longest border so overlapping matches are found
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan(String, int, int, String, int[], Matches, int)}, over any CharSequence
+     */
+    static int scan(CharSequence text, int from, int to, String patt, int[] match, Matches out, int limit) {
+        final int m = patt.length();
+        int count = 0;
+        int i = 0;
+        for (int k = from; k < to; k++) {
+            final char c = text.charAt(k);
+            while (i >= 0 && patt.charAt(i) != c) i = match[i];
+            if (++i == m) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+                i = match[m];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan(String, int, int, String, int[], Matches, int)}, over <code>text[offset + from,
+     * offset + to)</code>, reporting offsets relative to <code>offset</code>
+     */
+    static int scan(char[] text, int offset, int from, int to, String patt, int[] match, Matches out, int limit) {
+        final int m = patt.length();
+        int count = 0;
+        int i = 0;
+        for (int k = from; k < to; k++) {
+            final char c = text[offset + k];
+            while (i >= 0 && patt.charAt(i) != c) i = match[i];
+            if (++i == m) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+                i = match[m];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan(String, int, int, String, int[], Matches, int)}, over Latin-1 bytes
+     * <code>text[offset + from, offset + to)</code>, reporting offsets relative to <code>offset</code>
+     */
+    static int scan(byte[] text, int offset, int from, int to, String patt, int[] match, Matches out, int limit) {
+        final int m = patt.length();
+        int count = 0;
+        int i = 0;
+        for (int k = from; k < to; k++) {
+            final char c = (char) (text[offset + k] & 0xFF);
+            while (i >= 0 && patt.charAt(i) != c) i = match[i];
+            if (++i == m) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+                i = match[m];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan}, but also records every comparison and shift.
+     * Kept separate so the uninstrumented loop carries no cost for it.
+     */
+    static int countedScan(CharSequence text, int from, int to, String patt, int[] match,
+                           Matches out, int limit, SearchStats stats) {
+        final int m = patt.length();
+        int count = 0;
+        int i = 0;
+        long comparisons = 0;
+        for (int k = from; k < to; k++) {
+            final char c = text.charAt(k);
+            while (i >= 0) {
+                comparisons++;
+                if (patt.charAt(i) == c) break;
+                stats.shifted(i - match[i]);
+                i = match[i];
+            }
+            if (++i == m) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+                stats.shifted(m - match[m]);
+                i = match[m];
+            }
+        }
+        stats.compared(comparisons);
+        return count;
+    }
+
+    /**
+     * Same as {@link #scan}, but folds each text character before comparing it, and records every comparison
+     * and shift if <code>stats</code> is not null
+     * @param key pattern, already folded
+     * @param match partial match table of the folded pattern
+     */
+    static int foldedScan(CharSequence text, int from, int to, String key, int[] match, CaseFolding folding,
+                          Matches out, int limit, SearchStats stats) {
+        final int m = key.length();
+        int count = 0;
+        int i = 0;
+        long comparisons = 0;
+        for (int k = from; k < to; k++) {
+            final char c = folding.fold(text, k);
+            while (i >= 0) {
+                comparisons++;
+                if (key.charAt(i) == c) break;
+                if (stats != null) stats.shifted(i - match[i]);
+                i = match[i];
+            }
+            if (++i == m) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+                if (stats != null) stats.shifted(m - match[m]);
+                i = match[m];
+            }
+        }
+        if (stats != null) stats.compared(comparisons);
+        return count;
     }
 
     /**
@@ -102,7 +430,7 @@ public class KMP implements SearchAlgorithm {
         final int[] match = new int[patt.length() + 1];
         match[0] = -1;
 
-        if (patt.length() == 1) return match;
+        if (patt.length() <= 1) return match;
 
         int cnd,  // the index in pat of the next character of the current candidate substring
             pos;  // the current position we are computing in match[]
@@ -0,0 +1,35 @@
+package Algorithm;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Part of a byte array holding Latin-1 (ISO-8859-1) characters, viewed as a <code>CharSequence</code>
+ * without decoding it.
+ * @param bytes array holding the text, one byte per character
+ * @param offset index of the first character
+ * @param length number of characters
+ */
+record Latin1Text(byte[] bytes, int offset, int length) implements CharSequence {
+    Latin1Text {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes[offset + Objects.checkIndex(index, length)] & 0xFF);
+    }
+
+    @Override
+    public @NotNull CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new Latin1Text(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,163 @@
+package Algorithm;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+/**
+ * Search a file for a pattern without reading it onto the heap.
+ * <br>The file is memory mapped one window at a time, and the KMP or Boyer-Moore loop runs directly
+ * over the mapped bytes. Consecutive windows overlap by one byte less than the pattern, so a match
+ * crossing a window boundary is found in the later window, and no match is reported twice.
+ * <br>The pattern is encoded as UTF-8, and all offsets are byte offsets into the file.
+ */
+public class MappedFileSearch {
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    private final Engine engine;
+    private final int windowSize;
+    private final byte[] patt;
+
+    private final int[] match;          // KMP partial match table
+    private final int[] badChar;        // Boyer-Moore bad character rule, indexed by byte value
+    private final int[] goodSuffix;     // Boyer-Moore good suffix rule
+
+    public MappedFileSearch(String patt, Engine engine) {
+        this(patt, engine, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param patt pattern to search for
+     * @param engine search engine to run over each window
+     * @param windowSize number of bytes mapped at a time, at least the encoded length of the pattern
+     * @throws IllegalArgumentException if the pattern is empty or contains an unpaired surrogate, or the window
+     *         is smaller than the pattern
+     */
+    public MappedFileSearch(String patt, Engine engine, int windowSize) {
+        if (patt.isEmpty()) throw new IllegalArgumentException("Pattern must not be empty");
+        CompiledPattern.requireWellFormed(patt);
+        this.engine = engine;
+        this.windowSize = windowSize;
+        this.patt = patt.getBytes(StandardCharsets.UTF_8);
+        if (windowSize < this.patt.length)
+            throw new IllegalArgumentException("Window size " + windowSize + " is smaller than the pattern");
+
+        // the preprocessing works on the pattern's bytes viewed as chars 0-255
+        String bytes = new String(this.patt, StandardCharsets.ISO_8859_1);
+        match = KMP.partialMatchTable(bytes);
+        badChar = ByteSearch.badCharTable(this.patt);
+        goodSuffix = BoyerMoore.goodSuffix(bytes);
+    }
+
+    /**
+     * @return byte offset of the first match in the file, or -1 if there is none
+     */
+    public long findFirst(Path file) throws IOException {
+        long[] first = { -1 };
+        search(file, offset -> {
+            first[0] = offset;
+            return false;
+        });
+        return first[0];
+    }
+
+    /**
+     * @return byte offsets of every (possibly overlapping) match in the file, in ascending order
+     */
+    public long[] findAll(Path file) throws IOException {
+        LongStream.Builder offsets = LongStream.builder();
+        search(file, offset -> {
+            offsets.add(offset);
+            return true;
+        });
+        return offsets.build().toArray();
+    }
+
+    /**
+     * @return number of (possibly overlapping) matches in the file
+     */
+    public long count(Path file) throws IOException {
+        long[] count = { 0 };
+        search(file, offset -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * Report every match in the file, in ascending order
+     * @param file file to search
+     * @param onMatch receives the byte offset of each match, and returns false to stop searching
+     */
+    public void search(Path file, LongPredicate onMatch) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final int m = patt.length;
+
+            // each window after the first starts m - 1 bytes before the end of the previous one
+            for (long pos = 0; pos + m <= size; pos += windowSize - (m - 1)) {
+                int len = (int) Math.min(windowSize, size - pos);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+
+                boolean more = switch (engine) {
+                    case KMP -> kmp(window, len, pos, onMatch);
+                    case BOYER_MOORE -> boyerMoore(window, len, pos, onMatch);
+                };
+                if (!more || pos + len == size) return;
+            }
+        }
+    }
+
+    /**
+     * KMP over one mapped window, see <code>KMP.scan</code>
+     * @return false if the consumer asked to stop
+     */
+    private boolean kmp(MappedByteBuffer window, int len, long base, LongPredicate onMatch) {
+        final int m = patt.length;
+        final byte first = patt[0];
+        int i = 0;
+        for (int k = 0; k < len; k++) {
+            // with no partial match, skip straight to the next byte that could start one
+            if (i == 0) {
+                while (k < len && window.get(k) != first) k++;
+                if (k == len) break;
+            }
+            final byte b = window.get(k);
+            while (i >= 0 && patt[i] != b) i = match[i];
+            if (++i == m) {
+                if (!onMatch.test(base + k - m + 1)) return false;
+                i = match[m];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Boyer-Moore over one mapped window, see <code>BoyerMoore.scan</code>
+     * @return false if the consumer asked to stop
+     */
+    private boolean boyerMoore(MappedByteBuffer window, int len, long base, LongPredicate onMatch) {
+        final int m = patt.length;
+        int i = m - 1;
+        while (i < len) {
+            int j = m - 1;
+            while (j >= 0 && patt[j] == window.get(i)) {
+                i--;
+                j--;
+            }
+            if (j < 0) {
+                if (!onMatch.test(base + i + 1)) return false;
+                i += 1 + goodSuffix[m - 1];
+            } else {
+                i += Math.max(goodSuffix[m - j - 1], badChar[window.get(i) & 0xFF]);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,28 @@
+package Algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Growable buffer of match offsets, filled by the run-to-completion search loops.
+ */
+final class Matches {
+    private int[] offsets = new int[16];
+    private int size = 0;
+
+    void add(int offset) {
+        if (size == offsets.length) offsets = Arrays.copyOf(offsets, size << 1);
+        offsets[size++] = offset;
+    }
+
+    int get(int index) {
+        return offsets[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(offsets, size);
+    }
+}
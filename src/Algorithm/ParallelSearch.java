@@ -0,0 +1,136 @@
+package Algorithm;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Search one large text on several cores at once.
+ * <br>The pattern tables are built once and shared read-only by every task. The text is split into
+ * segments that each own the matches <em>starting</em> inside them, and each segment's search runs on
+ * into the next segment by <code>patt.length() - 1</code> characters, so a match crossing a boundary is
+ * found by exactly one segment. The segment results are then concatenated in order.
+ */
+public class ParallelSearch {
+    public static final int DEFAULT_THRESHOLD = 1 << 18;
+
+    private final Engine engine;
+    private final String patt;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    private final int[] match;          // KMP partial match table
+    private final CharIntMap badChar;   // Boyer-Moore bad character rule
+    private final int[] goodSuffix;     // Boyer-Moore good suffix rule
+
+    public ParallelSearch(String patt, Engine engine) {
+        this(CompiledPattern.of(patt), engine, DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param compiled pattern to search for
+     * @param engine search engine to run on each segment
+     * @param threshold smallest segment of text worth searching as its own task;
+     *                  texts shorter than twice this are searched on the calling thread
+     * @param pool pool to run the segment tasks on
+     */
+    public ParallelSearch(CompiledPattern compiled, Engine engine, int threshold, ForkJoinPool pool) {
+        if (compiled.patt().isEmpty()) throw new IllegalArgumentException("Pattern must not be empty");
+        if (threshold < 1) throw new IllegalArgumentException("Threshold must be positive");
+        this.engine = engine;
+        this.patt = compiled.patt();
+        this.threshold = threshold;
+        this.pool = pool;
+
+        match = compiled.match();
+        badChar = compiled.badChar();
+        goodSuffix = compiled.goodSuffix();
+    }
+
+    /**
+     * @return offsets of every (possibly overlapping) match of the pattern in the text, in ascending order
+     */
+    public int[] findAll(String text) {
+        if (text.length() < 2 * threshold) {
+            Matches out = new Matches();
+            search(text, 0, text.length(), out);
+            return out.toArray();
+        }
+        return pool.invoke(new FindAll(text, 0, text.length()));
+    }
+
+    /**
+     * @return number of (possibly overlapping) matches of the pattern in the text
+     */
+    public int count(String text) {
+        if (text.length() < 2 * threshold) return search(text, 0, text.length(), null);
+        return pool.invoke(new Count(text, 0, text.length()));
+    }
+
+    /**
+     * Search for the matches starting in <code>text[from, to)</code>
+     * @param out receives match offsets, or null if only counting
+     * @return number of matches found
+     */
+    private int search(String text, int from, int to, Matches out) {
+        // let the search run on into the next segment, far enough to finish a match starting in this one
+        int end = (int) Math.min(text.length(), (long) to + patt.length() - 1);
+        return switch (engine) {
+            case KMP -> KMP.scan(text, from, end, patt, match, out, Integer.MAX_VALUE);
+            case BOYER_MOORE -> BoyerMoore.scan(text, from, end, patt, badChar, goodSuffix, out, Integer.MAX_VALUE);
+        };
+    }
+
+    private final class FindAll extends RecursiveTask<int[]> {
+        private final String text;
+        private final int from, to;
+
+        FindAll(String text, int from, int to) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from < 2 * threshold) {
+                Matches out = new Matches();
+                search(text, from, to, out);
+                return out.toArray();
+            }
+
+            int mid = from + (to - from) / 2;
+            FindAll left = new FindAll(text, from, mid);
+            left.fork();
+            int[] right = new FindAll(text, mid, to).compute();
+            int[] leftMatches = left.join();
+
+            // segments own the matches starting in them, so concatenating keeps order and drops nothing twice
+            int[] merged = new int[leftMatches.length + right.length];
+            System.arraycopy(leftMatches, 0, merged, 0, leftMatches.length);
+            System.arraycopy(right, 0, merged, leftMatches.length, right.length);
+            return merged;
+        }
+    }
+
+    private final class Count extends RecursiveTask<Integer> {
+        private final String text;
+        private final int from, to;
+
+        Count(String text, int from, int to) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from < 2 * threshold) return search(text, from, to, null);
+
+            int mid = from + (to - from) / 2;
+            Count left = new Count(text, from, mid);
+            left.fork();
+            int right = new Count(text, mid, to).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package Algorithm;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used cache of compiled patterns.
+ * <br>The cache is bounded both by number of entries and by the total weight of their tables.
+ * All methods are thread-safe; patterns are compiled outside of the lock, so a slow compile never
+ * blocks lookups of other patterns.
+ */
+public final class PatternCache {
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+    public static final long DEFAULT_MAX_WEIGHT = 64L << 20;
+
+    private static final PatternCache SHARED = new PatternCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, CompiledPattern> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param maxEntries most patterns held at once
+     * @param maxWeight most total table weight held at once, see {@link CompiledPattern#weight()}
+     */
+    public PatternCache(int maxEntries, long maxWeight) {
+        if (maxEntries < 0 || maxWeight < 0) throw new IllegalArgumentException("Cache bounds must not be negative");
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * @return the cache used by {@link CompiledPattern#of(String)} and the search engines
+     */
+    public static PatternCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param patt pattern to look up
+     * @return the cached compiled pattern if there is one, otherwise a newly compiled and cached one
+     */
+    public CompiledPattern get(String patt) {
+        synchronized (this) {
+            CompiledPattern cached = entries.get(patt);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        CompiledPattern compiled = CompiledPattern.compile(patt);
+
+        synchronized (this) {
+            // another thread may have compiled the same pattern meanwhile
+            CompiledPattern raced = entries.get(patt);
+            if (raced != null) return raced;
+
+            if (compiled.weight() <= maxWeight && maxEntries > 0) {
+                entries.put(patt, compiled);
+                weight += compiled.weight();
+                evict();
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Drop least recently used entries until the cache is within both bounds
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, CompiledPattern>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || weight > maxWeight) {
+            weight -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Remove every entry, keeping the hit and miss counts
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+}
@@ -1,6 +1,9 @@
 package Algorithm;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.CharBuffer;
 
 /**
  * A string search algorithm.
@@ -18,12 +21,39 @@ public interface SearchAlgorithm {
      */
     State state();
 
-    @NotNull String text();
+    @NotNull CharSequence text();
     @NotNull String patt();
 
-    void setText(String s);
+    /**
+     * Set the text to search. Every engine reads a <code>CharSequence</code> in place, except
+     * <code>ShortPatternSearch</code>, whose candidate scan needs <code>String.indexOf</code>, so it makes a
+     * <code>String</code> of the text unless it already is one.
+     * @param s text to search, which must not change while it is being searched
+     */
+    void setText(CharSequence s);
     void setPatt(String s);
 
+    /**
+     * Set the text to search to part of a char array, without copying it
+     * @param chars array holding the text
+     * @param offset index of the first character of the text
+     * @param length number of characters in the text
+     */
+    default void setText(char[] chars, int offset, int length) {
+        setText(CharBuffer.wrap(chars, offset, length).slice());
+    }
+
+    /**
+     * Set the text to search to part of a byte array holding Latin-1 (ISO-8859-1) characters,
+     * without copying or decoding it
+     * @param latin1 array holding the text, one byte per character
+     * @param offset index of the first character of the text
+     * @param length number of characters in the text
+     */
+    default void setText(byte[] latin1, int offset, int length) {
+        setText(new Latin1Text(latin1, offset, length));
+    }
+
     /**
      * @return number of spaces the pattern is offset from the left
      */
@@ -35,6 +65,37 @@ public interface SearchAlgorithm {
      */
     @NotNull MatchInfo step();
 
+    /**
+     * Run the search to completion from the given index, independent of the step-by-step state
+     * @param from index of the text to start searching from
+     * @return offset of the first match at or after <code>from</code>, or -1 if there is none
+     */
+    int findFirst(int from);
+
+    /**
+     * Run the search to completion, independent of the step-by-step state
+     * @return offsets of every (possibly overlapping) match of the pattern in the text, in ascending order
+     */
+    int @NotNull [] findAll();
+
+    /**
+     * Run the search to completion, independent of the step-by-step state
+     * @return number of (possibly overlapping) matches of the pattern in the text
+     */
+    int count();
+
+    /**
+     * Attach a statistics collector to this algorithm, or detach it with null.
+     * While detached, searching does no extra work.
+     * @param stats collector to record the following searches into
+     */
+    void setStats(@Nullable SearchStats stats);
+
+    /**
+     * @return the attached statistics collector, or null if there is none
+     */
+    @Nullable SearchStats stats();
+
     /**
      * Object that encapsulates information about the state of a character match
      * @param textIndex the index of the source text at which the check was made
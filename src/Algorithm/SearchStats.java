@@ -0,0 +1,104 @@
+package Algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Opt-in statistics collected by a <code>SearchAlgorithm</code> while it searches.
+ * <br>Counts character comparisons and pattern shifts, keeps a histogram of shift lengths in power of two
+ * buckets, and for Boyer-Moore records which rule chose each shift. Collectors accumulate across searches
+ * until {@link #reset()}. They are not thread-safe, so give each algorithm its own.
+ */
+public final class SearchStats {
+    /** Which Boyer-Moore rule gave the larger jump */
+    public enum Rule { BAD_CHARACTER, GOOD_SUFFIX, TIE }
+
+    public static final int HISTOGRAM_BUCKETS = Integer.SIZE;
+
+    private long comparisons = 0;
+    private long shifts = 0;
+    private long shiftTotal = 0;
+    private final long[] histogram = new long[HISTOGRAM_BUCKETS];  // bucket b counts shifts in [2^b, 2^(b+1))
+    private final long[] ruleWins = new long[Rule.values().length];
+
+    /**
+     * Record character comparisons
+     * @param n number of comparisons made
+     */
+    public void compared(long n) {
+        comparisons += n;
+    }
+
+    /**
+     * Record the pattern moving along the text
+     * @param length number of characters the pattern moved by
+     */
+    public void shifted(int length) {
+        shifts++;
+        shiftTotal += length;
+        histogram[bucket(length)]++;
+    }
+
+    /**
+     * Record the pattern moving along the text, by a Boyer-Moore jump
+     * @param length number of characters the pattern moved by
+     * @param badChar jump given by the bad character rule
+     * @param goodSuffix jump given by the good suffix rule
+     */
+    public void shifted(int length, int badChar, int goodSuffix) {
+        shifted(length);
+        Rule winner = badChar > goodSuffix ? Rule.BAD_CHARACTER
+                : goodSuffix > badChar ? Rule.GOOD_SUFFIX
+                : Rule.TIE;
+        ruleWins[winner.ordinal()]++;
+    }
+
+    public long comparisons() {
+        return comparisons;
+    }
+
+    public long shifts() {
+        return shifts;
+    }
+
+    /**
+     * @return mean number of characters the pattern moved per shift
+     */
+    public double averageShift() {
+        return shifts == 0 ? 0 : (double) shiftTotal / shifts;
+    }
+
+    /**
+     * @param textLength length of the text searched
+     * @return comparisons made per character of text; below 1 means text was skipped over
+     */
+    public double comparisonsPerChar(int textLength) {
+        return textLength == 0 ? 0 : (double) comparisons / textLength;
+    }
+
+    /**
+     * @return copy of the shift length histogram, where bucket b counts shifts of length 2^b to 2^(b+1) - 1
+     */
+    public long[] shiftHistogram() {
+        return histogram.clone();
+    }
+
+    /**
+     * @param rule Boyer-Moore rule
+     * @return number of shifts for which the rule gave the larger jump
+     */
+    public long wins(Rule rule) {
+        return ruleWins[rule.ordinal()];
+    }
+
+    public void reset() {
+        comparisons = 0;
+        shifts = 0;
+        shiftTotal = 0;
+        Arrays.fill(histogram, 0);
+        Arrays.fill(ruleWins, 0);
+    }
+
+    private static int bucket(int length) {
+        return length <= 0 ? 0 : Integer.SIZE - 1 - Integer.numberOfLeadingZeros(length);
+    }
+}
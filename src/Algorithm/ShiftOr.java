@@ -0,0 +1,227 @@
+package Algorithm;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Bit-parallel Shift-Or string search algorithm (Baeza-Yates and Gonnet).
+ * <br>Bit i of the state vector is 0 while the last i + 1 characters of text read equal the first i + 1
+ * characters of the pattern. Each text character costs one shift and one OR with that character's mask,
+ * with no branch on whether characters matched. Patterns of up to {@value Long#SIZE} characters keep the
+ * state in a single <code>long</code>; longer ones use as many as they need, carrying between them.
+ */
+public class ShiftOr implements SearchAlgorithm {
+    private CharSequence text = "";
+    private String patt = "";
+
+    private CharIntMap charClass = new CharIntMap("", 0);  // character to mask index, 0 for characters not in patt
+    private long[] masks = new long[1];  // masks[class * words + w], bit i clear if patt[i] is in the class
+    private int words = 1;               // longs per state vector
+
+    private long[] d = new long[1];  // state vector
+    private int k = 0;               // number of text characters read
+    private int pattOffset = 0;
+
+    private SearchStats stats = null;
+
+    @Override
+    public boolean ready() {
+        return !(text.isEmpty() || patt.isEmpty()) && state() == State.IN_PROGRESS;
+    }
+
+    @Override
+    public State state() {
+        if (text.isEmpty() || patt.isEmpty() || patt.length() > text.length()) return State.NO_MATCH;
+        if (k > 0 && !bit(patt.length() - 1)) return State.MATCH_FOUND;
+        if (k >= text.length()) return State.NO_MATCH;
+        return State.IN_PROGRESS;
+    }
+
+    @Override
+    public @NotNull CharSequence text() {
+        return text;
+    }
+
+    @Override
+    public @NotNull String patt() {
+        return patt;
+    }
+
+    @Override
+    public void setText(CharSequence s) {
+        text = s;
+        restart();
+    }
+
+    @Override
+    public void setPatt(String s) {
+        patt = s;
+        words = Math.max(1, (s.length() + Long.SIZE - 1) / Long.SIZE);
+
+        // one mask per distinct pattern character, plus class 0 for every other character
+        charClass = new CharIntMap(s, 0);
+        for (int i = 0; i < s.length(); i ++)
+            if (!charClass.containsKey(s.charAt(i))) charClass.put(s.charAt(i), charClass.size() + 1);
+        masks = new long[(charClass.size() + 1) * words];
+        Arrays.fill(masks, ~0L);
+        for (int i = 0; i < s.length(); i ++)
+            masks[charClass.get(s.charAt(i)) * words + i / Long.SIZE] &= ~(1L << i);
+
+        restart();
+    }
+
+    private void restart() {
+        d = new long[words];
+        Arrays.fill(d, ~0L);
+        k = 0;
+        pattOffset = 0;
+    }
+
+    @Override
+    public int pattOffset() {
+        return pattOffset;
+    }
+
+    /**
+     * @param i index of the pattern
+     * @return bit i of the state vector: false if <code>patt[0, i]</code> matches the text just read
+     */
+    public boolean bit(int i) {
+        return (d[i / Long.SIZE] & 1L << i) != 0;
+    }
+
+    /**
+     * @return copy of the state vector, least significant bits (shortest prefixes) first
+     */
+    public long[] bitVector() {
+        return d.clone();
+    }
+
+    @Override
+    public @NotNull MatchInfo step() {
+        MatchInfo ret = new MatchInfo(k, 0, false);
+        if (k < text.length()) {
+            if (stats != null) stats.compared(1);
+            shift(d, masks, charClass.get(text.charAt(k)) * words);
+            k ++;
+
+            // line the pattern up under the longest prefix still matching
+            int longest = patt.length();
+            while (longest > 0 && bit(longest - 1)) longest --;
+            if (longest > 0) ret = new MatchInfo(k - 1, longest - 1, true);
+            else if (stats != null) stats.shifted(1);
+            pattOffset = k - Math.max(longest, 1);
+        }
+        return ret;
+    }
+
+    @Override
+    public int findFirst(int from) {
+        if (!searchable()) return -1;
+        Matches out = new Matches();
+        scan(Math.max(0, from), out, 1);
+        return out.size() == 0 ? -1 : out.get(0);
+    }
+
+    @Override
+    public int @NotNull [] findAll() {
+        Matches out = new Matches();
+        if (searchable()) scan(0, out, Integer.MAX_VALUE);
+        return out.toArray();
+    }
+
+    @Override
+    public int count() {
+        if (!searchable()) return 0;
+        return scan(0, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void setStats(@Nullable SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public @Nullable SearchStats stats() {
+        return stats;
+    }
+
+    private boolean searchable() {
+        return !patt.isEmpty() && patt.length() <= text.length();
+    }
+
+    /**
+     * Report every match starting at or after <code>from</code>
+     * @param out receives the match offsets, or null if only counting
+     * @param limit stop after this many matches
+     * @return number of matches found
+     */
+    private int scan(int from, Matches out, int limit) {
+        return words == 1
+                ? scan(text, from, patt.length(), charClass, masks, out, limit, stats)
+                : scanWide(text, from, patt.length(), charClass, masks, words, out, limit, stats);
+    }
+
+    /**
+     * Record one comparison, a mask lookup, per character the search read, whether or not it matched
+     * @param from index of the first character read
+     * @param k index of the last character read, or the length of the text if the search read to its end
+     */
+    private static void read(SearchStats stats, CharSequence text, int from, int k) {
+        if (stats != null) stats.compared(Math.max(0, Math.min(k + 1, text.length()) - from));
+    }
+
+    /**
+     * Shift-Or over a single <code>long</code>, for patterns of up to 64 characters
+     * @param stats records a comparison per character read, or null
+     */
+    static int scan(CharSequence text, int from, int m, CharIntMap charClass, long[] masks, Matches out, int limit,
+                    SearchStats stats) {
+        final long hit = 1L << (m - 1);
+        int count = 0;
+        long d = ~0L;
+        int k;
+        for (k = from; k < text.length(); k++) {
+            d = d << 1 | masks[charClass.get(text.charAt(k))];
+            if ((d & hit) == 0) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+            }
+        }
+        read(stats, text, from, k);
+        return count;
+    }
+
+    /**
+     * Shift-Or over several <code>long</code>s, for patterns longer than 64 characters
+     */
+    static int scanWide(CharSequence text, int from, int m, CharIntMap charClass, long[] masks, int words,
+                        Matches out, int limit, SearchStats stats) {
+        final long hit = 1L << (m - 1);
+        final int hitWord = (m - 1) / Long.SIZE;
+        int count = 0;
+        long[] d = new long[words];
+        Arrays.fill(d, ~0L);
+        int k;
+        for (k = from; k < text.length(); k++) {
+            shift(d, masks, charClass.get(text.charAt(k)) * words);
+            if ((d[hitWord] & hit) == 0) {
+                if (out != null) out.add(k - m + 1);
+                if (++count == limit) break;
+            }
+        }
+        read(stats, text, from, k);
+        return count;
+    }
+
+    /**
+     * Shift a multi-word state vector one place towards longer prefixes, then apply a character's mask
+     * @param mask index of the first word of the character's mask
+     */
+    private static void shift(long[] d, long[] masks, int mask) {
+        for (int w = d.length - 1; w > 0; w--) d[w] = (d[w] << 1 | d[w - 1] >>> 63) | masks[mask + w];
+        d[0] = d[0] << 1 | masks[mask];
+    }
+}
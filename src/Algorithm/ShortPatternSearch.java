@@ -0,0 +1,181 @@
+package Algorithm;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Brute force search, fast for patterns of one to three characters.
+ * <br>Candidates are found with <code>String.indexOf(char)</code>, which the JVM compiles to a vectorised
+ * scan, and the few remaining characters are compared directly. There are no tables to build, which is
+ * where the other engines lose out on patterns this short.
+ */
+public class ShortPatternSearch implements SearchAlgorithm {
+    public static final int MAX_LENGTH = 3;
+
+    private String text = "";
+    private String patt = "";
+
+    private int k = 0;  // start of current match in text
+    private int i = 0;  // position of current character in patt
+    private int pattOffset = 0;
+
+    private SearchStats stats = null;
+
+    @Override
+    public boolean ready() {
+        return !(text.isEmpty() || patt.isEmpty()) && state() == State.IN_PROGRESS;
+    }
+
+    @Override
+    public State state() {
+        if ((text.isEmpty() || patt.isEmpty())
+                || patt.length() > text.length()
+                || k + patt.length() > text.length())
+            return State.NO_MATCH;
+        if (i == patt.length()) return State.MATCH_FOUND;
+        return State.IN_PROGRESS;
+    }
+
+    @Override
+    public @NotNull String text() {
+        return text;
+    }
+
+    @Override
+    public @NotNull String patt() {
+        return patt;
+    }
+
+    @Override
+    public void setText(CharSequence s) {
+        // the candidate scan needs String.indexOf, which no other CharSequence has
+        text = s.toString();
+        restart();
+    }
+
+    @Override
+    public void setPatt(String s) {
+        patt = s;
+        restart();
+    }
+
+    private void restart() {
+        k = 0;
+        i = 0;
+        pattOffset = 0;
+    }
+
+    @Override
+    public int pattOffset() {
+        return pattOffset;
+    }
+
+    @Override
+    public @NotNull MatchInfo step() {
+        pattOffset = k;
+        MatchInfo ret = new MatchInfo(k + i, i, false);
+        if (k + i < text.length()) {
+            if (stats != null) stats.compared(1);
+            if (patt.charAt(i) == text.charAt(k + i)) {
+                ret = new MatchInfo(k + i, i, true);
+                i ++;
+            }
+            // mismatch, try the next position
+            else {
+                if (stats != null) stats.shifted(1);
+                k ++;
+                i = 0;
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public int findFirst(int from) {
+        if (patt.isEmpty() || patt.length() > text.length()) return -1;
+        if (stats != null) {
+            Matches out = new Matches();
+            countedScan(text, Math.max(0, from), text.length(), patt, out, 1, stats);
+            return out.size() == 0 ? -1 : out.get(0);
+        }
+        return indexOf(text, Math.max(0, from), text.length(), patt);
+    }
+
+    @Override
+    public int @NotNull [] findAll() {
+        Matches out = new Matches();
+        if (patt.isEmpty()) return out.toArray();
+        if (stats != null) {
+            countedScan(text, 0, text.length(), patt, out, Integer.MAX_VALUE, stats);
+            return out.toArray();
+        }
+        for (int k = indexOf(text, 0, text.length(), patt); k >= 0; k = indexOf(text, k + 1, text.length(), patt))
+            out.add(k);
+        return out.toArray();
+    }
+
+    @Override
+    public int count() {
+        if (patt.isEmpty()) return 0;
+        if (stats != null) return countedScan(text, 0, text.length(), patt, null, Integer.MAX_VALUE, stats);
+        int count = 0;
+        for (int k = indexOf(text, 0, text.length(), patt); k >= 0; k = indexOf(text, k + 1, text.length(), patt))
+            count ++;
+        return count;
+    }
+
+    @Override
+    public void setStats(@Nullable SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public @Nullable SearchStats stats() {
+        return stats;
+    }
+
+    /**
+     * Find the first match lying entirely within <code>text[from, to)</code>
+     * @return offset of the first match, or -1 if there is none
+     */
+    static int indexOf(String text, int from, int to, String patt) {
+        final int m = patt.length();
+        final char first = patt.charAt(0);
+        for (int k = text.indexOf(first, from); k >= 0 && k <= to - m; k = text.indexOf(first, k + 1)) {
+            int i = 1;
+            while (i < m && patt.charAt(i) == text.charAt(k + i)) i ++;
+            if (i == m) return k;
+        }
+        return -1;
+    }
+
+    /**
+     * Same search as {@link #indexOf}, but also records every comparison and shift, counting them as the
+     * brute force search makes them: each character read by <code>String.indexOf</code> is one comparison
+     * against the pattern's first character, and the pattern moves one place after each position.
+     * Kept separate so the uninstrumented loop carries no cost for it.
+     * @param out receives the match offsets, or null if only counting
+     * @param limit stop after this many matches
+     * @return number of matches found
+     */
+    static int countedScan(String text, int from, int to, String patt, Matches out, int limit, SearchStats stats) {
+        final int m = patt.length();
+        int count = 0;
+        long comparisons = 0;
+        for (int k = from; k <= to - m; k++) {
+            int i = 0;
+            while (i < m) {
+                comparisons++;
+                if (patt.charAt(i) != text.charAt(k + i)) break;
+                i++;
+            }
+            if (i == m) {
+                if (out != null) out.add(k);
+                if (++count == limit) break;
+            }
+            stats.shifted(1);
+        }
+        stats.compared(comparisons);
+        return count;
+    }
+}
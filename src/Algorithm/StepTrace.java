@@ -0,0 +1,164 @@
+package Algorithm;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntSupplier;
+
+/**
+ * Every step of a search, recorded by running it through once, so that the search can be shown as it was
+ * after any number of steps without running it again.
+ * <br>Steps are kept in parallel <code>int</code> arrays and a <code>BitSet</code> rather than as
+ * <code>MatchInfo</code> records, about 12 bytes a step, so a search of millions of steps fits in a few
+ * tens of MB. Looking up any step is O(1).
+ * <br>A position counts steps taken: position 0 is before the first step, and position {@link #size()}
+ * after the last. The trace also keeps the position currently shown, see {@link #seek}.
+ * <br>Recording checks for interrupts every few thousand steps, so that a long recording on a background
+ * thread can be abandoned.
+ */
+public final class StepTrace {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INTERRUPT_CHECK_MASK = (1 << 12) - 1;  // check for interrupts every 4096 steps
+
+    // per step
+    private int[] textIndex = new int[0];
+    private int[] pattIndex = new int[0];
+    private final BitSet match = new BitSet();
+
+    // per position
+    private int[] pattOffset = new int[1];
+    private int[] detail = null;  // null if no detail was recorded
+
+    private int size = 0;
+    private SearchAlgorithm.State endState = SearchAlgorithm.State.NO_MATCH;
+    private int position = 0;
+
+    /**
+     * Run a search until it stops, recording every step, and go back to position 0
+     * @param alg search to run, from wherever it is now
+     */
+    public void record(SearchAlgorithm alg) {
+        record(alg, null);
+    }
+
+    /**
+     * Run a search until it stops, recording every step, and go back to position 0
+     * @param alg search to run, from wherever it is now
+     * @param detail read at every position, for anything else a display needs to show that step,
+     *               or null for nothing
+     * @throws CancellationException if the thread is interrupted before the search stops
+     */
+    public void record(SearchAlgorithm alg, @Nullable IntSupplier detail) {
+        int capacity = INITIAL_CAPACITY;
+        textIndex = new int[capacity];
+        pattIndex = new int[capacity];
+        pattOffset = new int[capacity + 1];
+        this.detail = detail == null ? null : new int[capacity + 1];
+        match.clear();
+        size = 0;
+        position = 0;
+
+        pattOffset[0] = alg.pattOffset();
+        if (detail != null) this.detail[0] = detail.getAsInt();
+        while (alg.ready()) {
+            if ((size & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted())
+                throw new CancellationException("Recording interrupted after " + size + " steps");
+            SearchAlgorithm.MatchInfo step = alg.step();
+            if (size == capacity) {
+                capacity <<= 1;
+                textIndex = Arrays.copyOf(textIndex, capacity);
+                pattIndex = Arrays.copyOf(pattIndex, capacity);
+                pattOffset = Arrays.copyOf(pattOffset, capacity + 1);
+                if (detail != null) this.detail = Arrays.copyOf(this.detail, capacity + 1);
+            }
+            textIndex[size] = step.textIndex();
+            pattIndex[size] = step.pattIndex();
+            if (step.match()) match.set(size);
+            size++;
+
+            pattOffset[size] = alg.pattOffset();
+            if (detail != null) this.detail[size] = detail.getAsInt();
+        }
+        endState = alg.state();
+
+        // let go of the spare capacity
+        textIndex = Arrays.copyOf(textIndex, size);
+        pattIndex = Arrays.copyOf(pattIndex, size);
+        pattOffset = Arrays.copyOf(pattOffset, size + 1);
+        if (detail != null) this.detail = Arrays.copyOf(this.detail, size + 1);
+    }
+
+    /**
+     * Take over the steps recorded by another trace, and go back to position 0
+     * @param other trace to take the steps of, which shares them afterwards
+     */
+    public void set(StepTrace other) {
+        textIndex = other.textIndex;
+        pattIndex = other.pattIndex;
+        match.clear();
+        match.or(other.match);
+        pattOffset = other.pattOffset;
+        detail = other.detail;
+        size = other.size;
+        endState = other.endState;
+        position = 0;
+    }
+
+    /**
+     * @return number of steps recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return position currently shown
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Move to another position
+     * @param position number of steps taken, from 0 to {@link #size()}
+     */
+    public void seek(int position) {
+        if (position < 0 || position > size)
+            throw new IllegalArgumentException("Position " + position + " is outside the trace of " + size + " steps");
+        this.position = position;
+    }
+
+    /**
+     * @param step index of a step, from 0 to {@link #size()} - 1
+     * @return what the step compared
+     */
+    public SearchAlgorithm.MatchInfo matchInfo(int step) {
+        return new SearchAlgorithm.MatchInfo(textIndex[step], pattIndex[step], match.get(step));
+    }
+
+    /**
+     * @return offset of the pattern after <code>position</code> steps
+     */
+    public int pattOffset(int position) {
+        return pattOffset[position];
+    }
+
+    /**
+     * @return detail recorded after <code>position</code> steps
+     * @throws IllegalStateException if the trace was recorded without detail
+     */
+    public int detail(int position) {
+        if (detail == null) throw new IllegalStateException("No detail was recorded");
+        return detail[position];
+    }
+
+    /**
+     * @return state of the search after <code>position</code> steps
+     */
+    public SearchAlgorithm.State state(int position) {
+        // the search only stopped at the end, so every earlier position was still in progress
+        return position < size ? SearchAlgorithm.State.IN_PROGRESS : endState;
+    }
+}
@@ -0,0 +1,120 @@
+package Algorithm;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.function.LongConsumer;
+
+/**
+ * Knuth-Morris-Pratt search over a stream of text that is pushed in one chunk at a time.
+ * <br>KMP never moves backwards through the text, so the only state carried between chunks is the
+ * current position in the pattern. Memory use is constant however long the stream is.
+ */
+public class StreamingKMP {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String patt;
+    private final int[] match;
+    private final LongConsumer onMatch;
+
+    private int i = 0;          // position of current character in patt
+    private long position = 0;  // number of characters consumed from the stream so far
+
+    /**
+     * @param patt pattern to search for
+     * @param onMatch receives the offset of each match, relative to the start of the stream
+     */
+    public StreamingKMP(String patt, LongConsumer onMatch) {
+        if (patt.isEmpty()) throw new IllegalArgumentException("Pattern must not be empty");
+        this.patt = patt;
+        this.match = CompiledPattern.of(patt).match();
+        this.onMatch = onMatch;
+    }
+
+    /**
+     * Consume the next chunk of the stream, reporting any matches that end inside it
+     * @param buf buffer holding the chunk
+     * @param off index of the first character of the chunk in <code>buf</code>
+     * @param len number of characters in the chunk
+     */
+    public void feed(char[] buf, int off, int len) {
+        final int m = patt.length();
+        int i = this.i;
+        for (int k = off; k < off + len; k++) {
+            final char c = buf[k];
+            while (i >= 0 && patt.charAt(i) != c) i = match[i];
+            if (++i == m) {
+                onMatch.accept(position + (k - off) - m + 1);
+                i = match[m];
+            }
+        }
+        this.i = i;
+        position += len;
+    }
+
+    /**
+     * Consume everything remaining in a reader
+     * @param in reader to drain, which is not closed
+     */
+    public void feed(Reader in) throws IOException {
+        char[] buf = new char[BUFFER_SIZE];
+        for (int n = in.read(buf); n != -1; n = in.read(buf)) feed(buf, 0, n);
+    }
+
+    /**
+     * Consume everything remaining in a byte channel, decoding it as it is read
+     * @param in channel to drain, which is not closed
+     * @param decoder decoder for the channel's charset
+     */
+    public void feed(ReadableByteChannel in, CharsetDecoder decoder) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        decoder.reset();
+
+        while (true) {
+            boolean eof = in.read(bytes) == -1;
+            bytes.flip();
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, eof);
+                if (result.isError()) result.throwException();
+                drain(chars);
+            } while (result.isOverflow());
+            bytes.compact();
+
+            if (eof) {
+                while (decoder.flush(chars).isOverflow()) drain(chars);
+                drain(chars);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Feed whatever has been decoded into a buffer, leaving it empty
+     */
+    private void drain(CharBuffer chars) {
+        chars.flip();
+        feed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        chars.clear();
+    }
+
+    /**
+     * @return number of characters consumed from the stream so far
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Forget any partial match, and start counting offsets from zero again
+     */
+    public void reset() {
+        i = 0;
+        position = 0;
+    }
+}
@@ -0,0 +1,110 @@
+package Algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Linear time suffix array construction by induced sorting (SA-IS, Nong, Zhang and Chan).
+ */
+final class SuffixArray {
+    private SuffixArray() {  }
+
+    /**
+     * @param s string of symbols, each between 0 and <code>upper</code> inclusive
+     * @param upper largest symbol that may appear in <code>s</code>
+     * @return the start indices of the suffixes of <code>s</code>, in lexicographic order
+     */
+    static int[] build(int[] s, int upper) {
+        final int n = s.length;
+        if (n == 0) return new int[0];
+        if (n == 1) return new int[] { 0 };
+        if (n == 2) return s[0] < s[1] ? new int[] { 0, 1 } : new int[] { 1, 0 };
+
+        // classify each suffix as S-type (smaller than the next suffix) or L-type
+        boolean[] ls = new boolean[n];
+        for (int i = n - 2; i >= 0; i--) ls[i] = s[i] == s[i + 1] ? ls[i + 1] : s[i] < s[i + 1];
+
+        // bucket boundaries: sumL[c] is where the L-type suffixes starting with c begin, sumS[c] the S-type
+        int[] sumL = new int[upper + 2];
+        int[] sumS = new int[upper + 2];
+        for (int i = 0; i < n; i++) {
+            if (!ls[i]) sumS[s[i]]++;
+            else sumL[s[i] + 1]++;
+        }
+        for (int i = 0; i <= upper; i++) {
+            sumS[i] += sumL[i];
+            if (i < upper) sumL[i + 1] += sumS[i];
+        }
+
+        // number the leftmost S-type positions (LMS), which seed the induced sort
+        int[] lmsMap = new int[n + 1];
+        Arrays.fill(lmsMap, -1);
+        int m = 0;
+        for (int i = 1; i < n; i++) if (!ls[i - 1] && ls[i]) lmsMap[i] = m++;
+        int[] lms = new int[m];
+        for (int i = 1, k = 0; i < n; i++) if (!ls[i - 1] && ls[i]) lms[k++] = i;
+
+        int[] sa = new int[n];
+        induce(s, sa, ls, sumL, sumS, lms, m);
+
+        if (m > 0) {
+            // the LMS substrings come out sorted; name them, then sort the LMS suffixes by recursion
+            int[] sortedLms = new int[m];
+            int k = 0;
+            for (int v : sa) if (lmsMap[v] != -1) sortedLms[k++] = v;
+
+            int[] recS = new int[m];
+            int recUpper = 0;
+            recS[lmsMap[sortedLms[0]]] = 0;
+            for (int i = 1; i < m; i++) {
+                int l = sortedLms[i - 1], r = sortedLms[i];
+                int endL = lmsMap[l] + 1 < m ? lms[lmsMap[l] + 1] : n;
+                int endR = lmsMap[r] + 1 < m ? lms[lmsMap[r] + 1] : n;
+                boolean same = true;
+                if (endL - l != endR - r) same = false;
+                else {
+                    while (l < endL && s[l] == s[r]) {
+                        l++;
+                        r++;
+                    }
+                    if (l == n || s[l] != s[r]) same = false;
+                }
+                if (!same) recUpper++;
+                recS[lmsMap[sortedLms[i]]] = recUpper;
+            }
+
+            int[] recSa = build(recS, recUpper);
+            for (int i = 0; i < m; i++) sortedLms[i] = lms[recSa[i]];
+            induce(s, sa, ls, sumL, sumS, sortedLms, m);
+        }
+        return sa;
+    }
+
+    /**
+     * Induce the order of every suffix from the order of the given LMS suffixes
+     */
+    private static void induce(int[] s, int[] sa, boolean[] ls, int[] sumL, int[] sumS, int[] lms, int m) {
+        final int n = s.length;
+        Arrays.fill(sa, -1);
+
+        int[] buf = sumS.clone();
+        for (int i = 0; i < m; i++) {
+            int d = lms[i];
+            if (d != n) sa[buf[s[d]]++] = d;
+        }
+
+        // L-type suffixes, left to right from the start of each bucket
+        buf = sumL.clone();
+        sa[buf[s[n - 1]]++] = n - 1;
+        for (int i = 0; i < n; i++) {
+            int v = sa[i];
+            if (v >= 1 && !ls[v - 1]) sa[buf[s[v - 1]]++] = v - 1;
+        }
+
+        // S-type suffixes, right to left from the end of each bucket
+        buf = sumL.clone();
+        for (int i = n - 1; i >= 0; i--) {
+            int v = sa[i];
+            if (v >= 1 && ls[v - 1]) sa[--buf[s[v - 1] + 1]] = v - 1;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package CLI;
+
+import Algorithm.AdaptiveSearch;
+import Algorithm.ByteSearch;
+import Algorithm.Engine;
+import Algorithm.MappedFileSearch;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grep-style search of files and directories from the command line, for batch jobs:
+ * <br><code>StringSearchCLI [-c] [-e kmp|boyer-moore|auto] [-j files] pattern path...</code>
+ * <br>Prints <code>path:offset</code> for every match, or <code>path:count</code> for every file with
+ * <code>-c</code>. Offsets are byte offsets into the file, whose bytes are searched for the pattern encoded
+ * as UTF-8. Directories are walked recursively, and every regular file in them is searched. As with
+ * <code>grep -r</code>, symbolic links named on the command line are followed but links inside directories
+ * are not, and a path that is neither a file nor a directory is reported as an error.
+ * <br>Each file is searched on its own virtual thread while the walk goes on, with at most <code>-j</code>
+ * files being read and searched at once. Small files are read onto the heap, larger ones are memory mapped.
+ * With <code>auto</code>, the engine is chosen for each file from a sample of its bytes.
+ * <br>Nothing here loads AWT or Swing, so it starts quickly and runs without a display. Files per second and
+ * MB/s go to standard error at the end. Exits with 0 if anything matched, 1 if nothing did, or 2 if the
+ * arguments were wrong or a file could not be read, like grep.
+ */
+public final class StringSearchCLI {
+    private static final String USAGE =
+            "usage: StringSearchCLI [-c] [-e kmp|boyer-moore|auto] [-j files] pattern path...";
+    private static final int SMALL_FILE = 1 << 20;  // files up to this many bytes are read onto the heap, larger ones mapped
+    private static final int SAMPLE_SIZE = 1 << 16;  // bytes from the start of a large file to choose an engine by
+    private static final int FLUSH_SIZE = 1 << 16;   // characters of a file's output to gather before printing
+
+    private final boolean countOnly;
+    private final @Nullable Engine engine;  // null to choose for each file
+    private final int pattLength;           // in bytes
+    private final Semaphore io;             // files being read and searched
+
+    private final ByteSearch kmp;
+    private final ByteSearch boyerMoore;
+    private final MappedFileSearch mappedKmp;
+    private final MappedFileSearch mappedBoyerMoore;
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicBoolean matched = new AtomicBoolean();
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    /**
+     * @param patt pattern to search for
+     * @param engine search engine, or null to choose one for each file
+     * @param jobs most files to read and search at once
+     * @param countOnly print the number of matches in each file rather than their offsets
+     * @throws IllegalArgumentException if the pattern is empty or contains an unpaired surrogate
+     */
+    StringSearchCLI(String patt, @Nullable Engine engine, int jobs, boolean countOnly, PrintStream out,
+                    PrintStream err) {
+        if (jobs < 1) throw new IllegalArgumentException("Number of files at once must be positive");
+        this.countOnly = countOnly;
+        this.engine = engine;
+        this.io = new Semaphore(jobs);
+        this.out = out;
+        this.err = err;
+
+        // tables are built once, and shared read-only by every file's search
+        kmp = new ByteSearch(patt, Engine.KMP);
+        boyerMoore = new ByteSearch(patt, Engine.BOYER_MOORE);
+        mappedKmp = new MappedFileSearch(patt, Engine.KMP);
+        mappedBoyerMoore = new MappedFileSearch(patt, Engine.BOYER_MOORE);
+        pattLength = patt.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Parse the command line and search
+     * @return exit status
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        boolean countOnly = false;
+        Engine engine = null;
+        int jobs = 2 * Runtime.getRuntime().availableProcessors();
+        List<String> operands = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i ++) {
+            String arg = args[i];
+            if (!operands.isEmpty() || !arg.startsWith("-") || arg.equals("-")) {
+                operands.add(arg);
+                continue;
+            }
+            switch (arg) {
+                case "--" -> {
+                    // everything after is an operand, even if it starts with -
+                    for (i++; i < args.length; i++) operands.add(args[i]);
+                }
+                case "-c", "--count" -> countOnly = true;
+                case "-e", "--engine" -> {
+                    if (++i == args.length) return usage(err, "Missing engine after " + arg);
+                    switch (args[i]) {
+                        case "kmp" -> engine = Engine.KMP;
+                        case "boyer-moore" -> engine = Engine.BOYER_MOORE;
+                        case "auto" -> engine = null;
+                        default -> { return usage(err, "Unknown engine " + args[i]); }
+                    }
+                }
+                case "-j", "--jobs" -> {
+                    if (++i == args.length) return usage(err, "Missing number of files after " + arg);
+                    try {
+                        jobs = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException e) {
+                        return usage(err, "Not a number of files: " + args[i]);
+                    }
+                }
+                default -> { return usage(err, "Unknown option " + arg); }
+            }
+        }
+        if (operands.size() < 2) return usage(err, operands.isEmpty() ? "Missing pattern" : "Missing path");
+
+        StringSearchCLI cli;
+        try {
+            cli = new StringSearchCLI(operands.get(0), engine, jobs, countOnly, out, err);
+        } catch (IllegalArgumentException e) {
+            return usage(err, e.getMessage());
+        }
+        return cli.search(operands.subList(1, operands.size()));
+    }
+
+    private static int usage(PrintStream err, String message) {
+        err.println(message);
+        err.println(USAGE);
+        return 2;
+    }
+
+    /**
+     * Search every file in some files and directories, then report how fast it went
+     * @return exit status
+     */
+    int search(List<String> paths) {
+        long start = System.nanoTime();
+        // closing waits for every file's search to finish
+        try (ExecutorService searches = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String path : paths) {
+                try {
+                    walk(Path.of(path), searches);
+                } catch (InvalidPathException | IOException e) {
+                    fail(path, e);
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double mb = bytes.sum() / (double) (1 << 20);
+        err.printf("%d files, %.1f MB in %.3f s: %.0f files/s, %.1f MB/s%n",
+                files.sum(), mb, seconds, files.sum() / seconds, mb / seconds);
+        return failed.get() ? 2 : matched.get() ? 0 : 1;
+    }
+
+    /**
+     * Start searching every regular file under a path, or the path itself if it is a file
+     */
+    private void walk(Path root, ExecutorService searches) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        if (attrs.isRegularFile()) {
+            searches.execute(() -> search(root, attrs.size()));
+            return;
+        }
+        if (!attrs.isDirectory()) {
+            fail(root.toString(), "Not a regular file or directory");
+            return;
+        }
+
+        SimpleFileVisitor<Path> visitor = new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) searches.execute(() -> search(file, attrs.size()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                fail(file.toString(), e);
+                return FileVisitResult.CONTINUE;
+            }
+        };
+        // the walk would not follow the root if it is a link, so start from what it holds
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(root)) {
+            for (Path child : children) Files.walkFileTree(child, visitor);
+        }
+    }
+
+    /**
+     * Search one file and print what it found, once there is room to read it
+     * @param size size of the file when it was found
+     */
+    private void search(Path file, long size) {
+        try {
+            io.acquire();
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            bytes.add(size <= SMALL_FILE ? searchRead(file) : searchMapped(file, size));
+            files.increment();
+        } catch (IOException e) {
+            fail(file.toString(), e);
+        } finally {
+            io.release();
+        }
+    }
+
+    /**
+     * Read a file onto the heap and search it
+     * @return number of bytes searched
+     */
+    private long searchRead(Path file) throws IOException {
+        byte[] text = Files.readAllBytes(file);
+        Engine e = engine != null ? engine : AdaptiveSearch.engineFor(text, 0, text.length, pattLength);
+        ByteSearch search = e == Engine.KMP ? kmp : boyerMoore;
+
+        if (countOnly) {
+            int count = search.count(text);
+            if (count > 0) matched.set(true);
+            print(file + ":" + count + "\n");
+            return text.length;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (int offset : search.findAll(text)) {
+            lines.append(file).append(':').append(offset).append('\n');
+            if (lines.length() >= FLUSH_SIZE) print(lines);
+        }
+        print(lines);
+        return text.length;
+    }
+
+    /**
+     * Search a file by memory mapping it
+     * @param size size of the file
+     * @return number of bytes searched
+     */
+    private long searchMapped(Path file, long size) throws IOException {
+        Engine e = engine;
+        if (e == null) {
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] sample = in.readNBytes(SAMPLE_SIZE);
+                e = AdaptiveSearch.engineFor(sample, 0, sample.length, pattLength);
+            }
+        }
+        MappedFileSearch search = e == Engine.KMP ? mappedKmp : mappedBoyerMoore;
+
+        if (countOnly) {
+            long count = search.count(file);
+            if (count > 0) matched.set(true);
+            print(file + ":" + count + "\n");
+            return size;
+        }
+        StringBuilder lines = new StringBuilder();
+        search.search(file, offset -> {
+            lines.append(file).append(':').append(offset).append('\n');
+            if (lines.length() >= FLUSH_SIZE) print(lines);
+            return true;
+        });
+        print(lines);
+        return size;
+    }
+
+    /**
+     * Print whole lines of output, which are never interleaved with another file's, and empty the builder
+     */
+    private void print(StringBuilder lines) {
+        if (lines.isEmpty()) return;
+        matched.set(true);
+        print(lines.toString());
+        lines.setLength(0);
+    }
+
+    private void print(String lines) {
+        synchronized (out) {
+            out.print(lines);
+        }
+    }
+
+    private void fail(String path, Exception e) {
+        // these only give the path as their message
+        String reason = switch (e) {
+            case NoSuchFileException x -> "No such file or directory";
+            case AccessDeniedException x -> "Permission denied";
+            default -> e.getMessage() != null ? e.getMessage() : e.toString();
+        };
+        fail(path, reason);
+    }
+
+    private void fail(String path, String reason) {
+        failed.set(true);
+        synchronized (err) {
+            err.println(path + ": " + reason);
+        }
+    }
+}
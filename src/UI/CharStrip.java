@@ -0,0 +1,210 @@
+package UI;
+
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The text and pattern rows of a display, painted as a single component.
+ * <br>There is no Swing component per character. Each row is the <code>CharSequence</code> it shows, an
+ * optional function giving the number under each cell, and a <code>byte</code> per cell for its colour.
+ * Painting only visits the cells intersecting the clip, which inside a <code>JScrollPane</code> is the
+ * viewport, so its cost depends on the visible width and not on the length of the text.
+ * <br>A step recolours a few cells and slides the pattern row along, repainting only the cells involved.
+ */
+final class CharStrip extends JComponent {
+    // cell colours, indexes into PALETTE
+    static final byte DEFAULT = 0;
+    static final byte MATCH = 1;
+    static final byte MISMATCH = 2;
+    private static final Color[] PALETTE = { Color.LIGHT_GRAY, Color.GREEN, Color.RED };
+
+    private static final int BOX_SIZE = 60;
+    private static final int BORDER = 2;
+    private static final int GAP = 2;                 // space between neighbouring cells
+    private static final int PITCH = BOX_SIZE + GAP;  // distance from one cell to the next
+
+    private static final Font CHAR_FONT = new Font("Verdana", Font.PLAIN, (int) (BOX_SIZE * 0.6));
+    private static final Font CHAR_ABOVE_SUB_FONT = new Font("Verdana", Font.PLAIN, (int) (BOX_SIZE * 0.5));
+    private static final Font SUB_FONT = new Font("Verdana", Font.PLAIN, (int) (BOX_SIZE * 0.2));
+
+    private final Row text = new Row();
+    private final Row patt = new Row();
+    private int pattOffset = 0;
+
+    private final char[] cell = new char[1];  // character being painted
+
+    private static final class Row {
+        CharSequence chars = "";
+        IntUnaryOperator sub = null;     // number shown under each cell, or null for none
+        byte[] colours = new byte[0];
+        int dirtyFrom = Integer.MAX_VALUE;  // cells in [dirtyFrom, dirtyTo) may not be DEFAULT
+        int dirtyTo = 0;
+    }
+
+    CharStrip() {
+        setOpaque(false);
+    }
+
+    private Row row(SearchDisplay.Field field) {
+        return field == SearchDisplay.Field.TEXT ? text : patt;
+    }
+
+    /**
+     * Replace what one row shows, with every cell in the default colour
+     * @param chars characters to show, which are read as the row is painted rather than copied
+     * @param sub number to show under the character at each index, or null for none
+     */
+    void setRow(SearchDisplay.Field field, CharSequence chars, @Nullable IntUnaryOperator sub) {
+        Row row = row(field);
+        row.chars = chars;
+        row.sub = sub;
+        row.colours = new byte[chars.length()];
+        row.dirtyFrom = Integer.MAX_VALUE;
+        row.dirtyTo = 0;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * @return characters a row shows
+     */
+    CharSequence chars(SearchDisplay.Field field) {
+        return row(field).chars;
+    }
+
+    /**
+     * @return number of cells in a row
+     */
+    int length(SearchDisplay.Field field) {
+        return row(field).chars.length();
+    }
+
+    /**
+     * Colour the cells <code>[from, to)</code> of a row, until the next {@link #clearColours}
+     * @param colour one of {@link #DEFAULT}, {@link #MATCH} or {@link #MISMATCH}
+     */
+    void colour(SearchDisplay.Field field, int from, int to, byte colour) {
+        Row row = row(field);
+        if (from >= to) return;
+        Arrays.fill(row.colours, from, to, colour);
+        row.dirtyFrom = Math.min(row.dirtyFrom, from);
+        row.dirtyTo = Math.max(row.dirtyTo, to);
+        repaintCells(field, from, to);
+    }
+
+    /**
+     * Return every cell coloured since the last call to the default colour
+     */
+    void clearColours() {
+        for (SearchDisplay.Field field : SearchDisplay.Field.values()) {
+            Row row = row(field);
+            if (row.dirtyFrom >= row.dirtyTo) continue;
+            Arrays.fill(row.colours, row.dirtyFrom, row.dirtyTo, DEFAULT);
+            repaintCells(field, row.dirtyFrom, row.dirtyTo);
+            row.dirtyFrom = Integer.MAX_VALUE;
+            row.dirtyTo = 0;
+        }
+    }
+
+    /**
+     * Repaint every cell of a row, for when the numbers under them have changed
+     */
+    void refresh(SearchDisplay.Field field) {
+        repaintCells(field, 0, length(field));
+    }
+
+    /**
+     * Slide the pattern row to line up with a text index. Only grows the component, and so only lays
+     * the display out again, if the pattern now runs past the end of the text.
+     */
+    void setPattOffset(int offset) {
+        if (offset == pattOffset) return;
+        repaintCells(SearchDisplay.Field.PATT, 0, patt.chars.length());
+        boolean grows = offset + patt.chars.length() > Math.max(text.chars.length(),
+                pattOffset + patt.chars.length());
+        pattOffset = offset;
+        repaintCells(SearchDisplay.Field.PATT, 0, patt.chars.length());
+        if (grows) revalidate();
+    }
+
+    /**
+     * Scroll the enclosing viewport, if there is one, so that a cell can be seen
+     */
+    void reveal(SearchDisplay.Field field, int index) {
+        scrollRectToVisible(cellBounds(field, index, index + 1));
+    }
+
+    private void repaintCells(SearchDisplay.Field field, int from, int to) {
+        Rectangle r = cellBounds(field, from, to);
+        repaint(r.x, r.y, r.width, r.height);
+    }
+
+    private Rectangle cellBounds(SearchDisplay.Field field, int from, int to) {
+        long x = GAP + (long) (from + (field == SearchDisplay.Field.PATT ? pattOffset : 0)) * PITCH;
+        int y = field == SearchDisplay.Field.TEXT ? 0 : PITCH;
+        long width = (long) (to - from) * PITCH;
+        return new Rectangle((int) Math.min(x, Integer.MAX_VALUE), y,
+                (int) Math.min(width, Integer.MAX_VALUE), BOX_SIZE);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        long cells = Math.max(text.chars.length(), pattOffset + patt.chars.length());
+        return new Dimension((int) Math.min(GAP + cells * PITCH, Integer.MAX_VALUE), PITCH + BOX_SIZE);
+    }
+
+    @Override
+    public Dimension getMinimumSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        paintRow(g2, text, 0, 0, clip);
+        paintRow(g2, patt, pattOffset, PITCH, clip);
+    }
+
+    /**
+     * Paint the cells of a row that intersect the clip
+     * @param offset index of the text cell the row starts under
+     * @param y top of the row
+     */
+    private void paintRow(Graphics2D g, Row row, int offset, int y, Rectangle clip) {
+        if (clip.y >= y + BOX_SIZE || clip.y + clip.height <= y) return;
+        long x0 = GAP + (long) offset * PITCH;
+        int first = (int) Math.max(0, (clip.x - x0) / PITCH);
+        int last = (int) Math.min(row.chars.length(), Math.floorDiv(clip.x + clip.width - x0, PITCH) + 1);
+        for (int i = first; i < last; i ++) paintCell(g, row, i, (int) (x0 + (long) i * PITCH), y);
+    }
+
+    private void paintCell(Graphics2D g, Row row, int i, int x, int y) {
+        g.setColor(PALETTE[row.colours[i]]);
+        g.fillRect(x, y, BOX_SIZE, BOX_SIZE);
+        g.setColor(Color.DARK_GRAY);
+        for (int b = 0; b < BORDER; b ++) g.drawRect(x + b, y + b, BOX_SIZE - 1 - 2 * b, BOX_SIZE - 1 - 2 * b);
+
+        // the character, centred in the space above the number if there is one
+        cell[0] = row.chars.charAt(i);
+        int charHeight = row.sub == null ? BOX_SIZE : BOX_SIZE * 3 / 4;
+        g.setFont(row.sub == null ? CHAR_FONT : CHAR_ABOVE_SUB_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        g.drawChars(cell, 0, 1, x + (BOX_SIZE - fm.charWidth(cell[0])) / 2,
+                y + (charHeight - fm.getHeight()) / 2 + fm.getAscent());
+
+        if (row.sub != null) {
+            String sub = Integer.toString(row.sub.applyAsInt(i));
+            g.setFont(SUB_FONT);
+            fm = g.getFontMetrics();
+            g.drawString(sub, x + (BOX_SIZE - fm.stringWidth(sub)) / 2, y + BOX_SIZE - BORDER - fm.getDescent());
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package UI;
 
+import Algorithm.AdaptiveSearch;
+import Algorithm.AhoCorasick;
 import Algorithm.BoyerMoore;
 import Algorithm.KMP;
 import Algorithm.SearchAlgorithm;
+import Algorithm.ShiftOr;
+import Algorithm.StepTrace;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.*;
-import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
 
-sealed interface SearchDisplay permits KMPDisplay, BoyerMooreDisplay {
-    Map<Field, Integer> fieldRow = Map.of(Field.TEXT, 0, Field.PATT, 1);
+sealed interface SearchDisplay permits KMPDisplay, BoyerMooreDisplay, AhoCorasickDisplay, AdaptiveDisplay,
+        ShiftOrDisplay {
     enum Field{ TEXT, PATT }
 
     /**
@@ -25,256 +27,316 @@ sealed interface SearchDisplay permits KMPDisplay, BoyerMooreDisplay {
     JPanel panel();
 
     /**
-     * @return the CharBox components corresponding to each field
+     * @return the component painting the text and pattern rows
      */
-    Map<Field, List<? extends CharBox>> fieldComponents();
+    CharStrip strip();
 
     /**
-     * @return spacer CharBoxes for offsetting the pattern text
+     * @return every step of the search, and which one is shown
      */
-    List<SpacerBox> spacers();
+    StepTrace trace();
 
     /**
-     * @return whether this display's associated algorithm is ready to run
+     * @return whether there is a later step to show
      */
     default boolean ready() {
-        return alg().ready();
+        return trace().position() < trace().size();
     }
 
     /**
-     * Update one of the display fields with new text
-     * @param str text to replace original value with
-     * @param field which field to write into
+     * Give the algorithm new text and pattern, and run the search through once to record it.
+     * <br>Touches only the algorithm, not the display, so it can run off the event dispatch thread
+     * as long as nothing else uses the algorithm meanwhile; pass the result to {@link #show} on the EDT.
+     * @throws java.util.concurrent.CancellationException if the thread is interrupted while recording
      */
-    default void updateString(String str, Field field) {
-        switch (field) {
-            case TEXT -> alg().setText(str);
-            case PATT -> alg().setPatt(str);
-        }
+    default StepTrace prepare(String text, String patt) {
+        // setting the text starts the search over, and is cheap; preprocessing the pattern may not be
+        alg().setText(text);
+        if (!patt.equals(alg().patt())) alg().setPatt(patt);
+        if (alg().stats() != null) alg().stats().reset();
+        return record();
+    }
+
+    /**
+     * Run the algorithm until it stops, recording every step
+     * @return the recorded steps
+     */
+    default StepTrace record() {
+        StepTrace recorded = new StepTrace();
+        recorded.record(alg());
+        return recorded;
+    }
+
+    /**
+     * Draw the fields from scratch and show a newly recorded search from its start
+     * @param recorded steps of the search for the algorithm's current text and pattern
+     */
+    default void show(StepTrace recorded) {
         draw();
+        trace().set(recorded);
+        seek(0);
     }
 
     /**
-     * Draw text and patt fields, with default coloring
+     * Draw text and patt fields from scratch, with default coloring
      * <br>The interface default method applies to all types of <code>SearchDisplay</code>
      * and is called from concrete record <code>draw()</code> methods after any
-     * implementation specific details are done.
+     * implementation specific details are done. Only needed when a string changes; see {@link #redraw()}.
      */
     default void draw() {
-        // setup layout constraints
-        GridBagConstraints c = new GridBagConstraints();
-        c.insets = new Insets(1, 1, 1, 1);
-        c.fill = GridBagConstraints.BOTH;
-
-        // add components for each field
-        for (Field f : Field.values()) {
-            c.gridy = fieldRow.get(f);  // which row is this field on?
-            c.gridx = 0;                // each row starts from first column
-
-            // For the pattern, offset as required
-            if (f == Field.PATT) {
-                for (SpacerBox spacer : spacers()) panel().remove(spacer.panel());
-                spacers().clear();
-                for (int i = 0; i < alg().pattOffset(); i++) {
-                    spacers().add(new SpacerBox());
-                    panel().add(spacers().getLast().panel(), c);
-                    c.gridx++;
-                }
-            }
-
-            // Add all letter components to panel
-            for (CharBox letter : fieldComponents().get(f)) {
-                panel().add(letter.panel(), c);
-                c.gridx++;
-            }
-        }
+        strip().setPattOffset(alg().pattOffset());
 
         panel().revalidate();
         panel().repaint();
     }
 
     /**
-     * Colour a character based on its match status at this point in the progress of the algorithm.
+     * Bring the strip up to date for the position shown: put back the colours of the last position shown,
+     * and slide the pattern to its offset. Nothing is rebuilt or laid out, however long the text is.
+     */
+    default void redraw() {
+        strip().clearColours();
+        strip().setPattOffset(trace().pattOffset(trace().position()));
+    }
+
+    /**
+     * Show the search as it was after some number of steps, straight from the trace
+     * @param position number of steps taken, from 0 to the number of steps in the trace
+     */
+    default void seek(int position) {
+        trace().seek(position);
+        redraw();
+        if (position == 0) return;
+
+        // MatchInfo gives us information about the state of the character match
+        SearchAlgorithm.MatchInfo match = trace().matchInfo(position - 1);
+        SearchAlgorithm.State state = trace().state(position);
+        if (state == SearchAlgorithm.State.IN_PROGRESS) {
+            colourMatchedChar(match);
+            return;
+        }
+
+        byte col = CharStrip.MISMATCH;  // no match exists in the text
+        int startInd = 0;
+        int endInd = strip().length(Field.TEXT);
+        if (state == SearchAlgorithm.State.MATCH_FOUND) { // match found!
+            col = CharStrip.MATCH;
+            startInd = matchStart(match);
+            endInd = startInd + strip().length(Field.PATT);
+        }
+
+        strip().colour(Field.PATT, 0, strip().length(Field.PATT), col);
+        strip().colour(Field.TEXT, startInd, endInd, col);
+    }
+
+    /**
+     * @param match the last step, which found a match
+     * @return index of the text where the match found starts
+     */
+    default int matchStart(SearchAlgorithm.MatchInfo match) {
+        return trace().pattOffset(trace().position());
+    }
+
+    /**
+     * Colour a character based on its match status at this point in the progress of the algorithm,
+     * scrolling it into view.
      * @param match information about the state of a character match
-     * @param fieldComponents the CharBox components corresponding to each display text field
      */
-    default void colourMatchedChar(SearchAlgorithm.MatchInfo match,
-                                  Map<Field, List<? extends CharBox>> fieldComponents) {
+    default void colourMatchedChar(SearchAlgorithm.MatchInfo match) {
         // colour depends on whether this char was a match or mismatch
-        Color col = match.match() ? CharBox.MATCH_COL() : CharBox.MISMATCH_COL();
+        byte col = match.match() ? CharStrip.MATCH : CharStrip.MISMATCH;
 
         // paint matched char in respective fields
-        fieldComponents.get(Field.TEXT).get(match.textIndex()).setColor(col);
-        fieldComponents.get(Field.PATT).get(match.pattIndex()).setColor(col);
+        strip().colour(Field.TEXT, match.textIndex(), match.textIndex() + 1, col);
+        strip().colour(Field.PATT, match.pattIndex(), match.pattIndex() + 1, col);
+        strip().reveal(Field.TEXT, match.textIndex());
+    }
 
-        panel().repaint();
+    /**
+     * Show the next step
+     */
+    default void step() {
+        seek(trace().position() + 1);
     }
 
     /**
-     * Take one step in the algorithm, display updated panel
+     * Show the previous step
      */
-    void step();
+    default void back() {
+        seek(trace().position() - 1);
+    }
 }
 
-record KMPDisplay(
-            Map<Field, List<? extends CharBox>> fieldComponents, List<SpacerBox> spacers,
-            JPanel panel, SearchAlgorithm alg)
-        implements SearchDisplay {
+record KMPDisplay(CharStrip strip, JPanel panel, KMP alg, StepTrace trace) implements SearchDisplay {
     KMPDisplay() {
-        this(new HashMap<>(){{
-            put(Field.TEXT, new ArrayList<>());
-            put(Field.PATT, new ArrayList<>());
-        }}, new ArrayList<>(), new JPanel(), new KMP());
+        this(new CharStrip(), new JPanel(new BorderLayout()), new KMP(), new StepTrace());
 
-        panel.setLayout(new GridBagLayout());
+        panel.add(strip, BorderLayout.CENTER);
     }
 
     public void draw() {
         // draw fields
-        // Clear all text boxes
-        for (Field f : fieldComponents().keySet()) {
-            for (CharBox letter : fieldComponents().get(f)) panel().remove(letter.panel());
-        }
-
-        // construct text components
-        fieldComponents().put(Field.TEXT, CharBox.singleBoxes(alg().text()));
+        strip.setRow(Field.TEXT, alg.text(), null);
 
-        // construct pattern components
-        if (alg().patt().isEmpty()) fieldComponents().put(Field.PATT, new ArrayList<>());
-        else fieldComponents().put(Field.PATT, kmpMatchBoxes(alg().patt()));
+        // show the pattern over its partial match table
+        int[] matchTable = alg.compiled().partialMatchTable();
+        strip.setRow(Field.PATT, alg.patt(), i -> matchTable[i]);
 
         SearchDisplay.super.draw();
     }
 
-    public void step() {
-        // iterate algorithm, MatchInfo gives us information about the state of the character match
-        SearchAlgorithm.MatchInfo match = alg.step();
+    public int matchStart(SearchAlgorithm.MatchInfo match) {
+        // KMP finds a match at its last character
+        return match.textIndex() - strip.length(Field.PATT) + 1;
+    }
+}
 
-        draw();
+record BoyerMooreDisplay(CharStrip strip, JPanel panel, BoyerMoore alg, StepTrace trace) implements SearchDisplay {
+    BoyerMooreDisplay() {
+        this(new CharStrip(), new JPanel(new BorderLayout()), new BoyerMoore(), new StepTrace());
 
-        Color col = CharBox.DEFAULT_COL();
-        int startInd = 0;
-        int endInd = 0;
-
-        switch (alg.state()) {
-            case IN_PROGRESS -> {
-                colourMatchedChar(match, fieldComponents);
-                return;
-            }
-            case NO_MATCH -> { // no match exists in the text
-                col = CharBox.MISMATCH_COL();
-                endInd = alg.text().length();
-            }
-            case MATCH_FOUND -> { // match found!
-                col = CharBox.MATCH_COL();
-                startInd = match.textIndex() - alg.patt().length() + 1;
-                endInd = startInd + alg.patt().length();
-            }
+        panel.add(strip, BorderLayout.CENTER);
+    }
+
+    public void draw() {
+        // draw fields
+        CharSequence text = alg.text();
+        if (alg.patt().isEmpty()) {
+            // if there is no pattern, so preprocessing can't have been done, just do chars
+            strip.setRow(Field.TEXT, text, null);
+        } else {
+            // show each text character over its bad character jump
+            Map<Character, Integer> badChar = alg.badCharDict();
+            int defVal = alg.patt().length();
+            strip.setRow(Field.TEXT, text, i -> badChar.getOrDefault(text.charAt(i), defVal));
         }
 
-        for (CharBox c : Stream.concat(
-                fieldComponents.get(Field.PATT).stream(),
-                fieldComponents.get(Field.TEXT).subList(startInd, endInd).stream()).toList()) {
-            c.setColor(col);
+        // show the pattern over its good suffix table
+        if (alg.patt().isEmpty()) {
+            strip.setRow(Field.PATT, "", null);
+        } else {
+            int[] goodSuffix = alg.goodSuffixTable();
+            strip.setRow(Field.PATT, alg.patt(), i -> goodSuffix[i]);
         }
 
-        panel.repaint();  // update colour
+        SearchDisplay.super.draw();
     }
 
-    static List<? extends CharBox> kmpMatchBoxes(String s) {
-        int[] matchTable = KMP.partialMatchTable(s);
-        return new ArrayList<>(){{
-            for (int i = 0; i < s.length(); i ++) add(new CharSubscript(s.charAt(i), matchTable[i]));
-        }};
+    public int matchStart(SearchAlgorithm.MatchInfo match) {
+        // Boyer-Moore finds a match at its first character
+        return match.textIndex();
     }
 }
 
-record BoyerMooreDisplay(
-        Map<Field, List<? extends CharBox>> fieldComponents,
-        List<SpacerBox> spacers,
-        JPanel panel,
-        BoyerMoore alg)
+record AhoCorasickDisplay(CharStrip strip, JPanel panel, AhoCorasick alg, StepTrace trace)
         implements SearchDisplay {
-    BoyerMooreDisplay() {
-        this(new HashMap<>(){{
-            put(Field.TEXT, new ArrayList<>());
-            put(Field.PATT, new ArrayList<>());
-        }}, new ArrayList<>(), new JPanel(), new BoyerMoore());
+    AhoCorasickDisplay() {
+        this(new CharStrip(), new JPanel(new BorderLayout()), new AhoCorasick(), new StepTrace());
 
-        panel.setLayout(new GridBagLayout());
+        panel.add(strip, BorderLayout.CENTER);
     }
 
     public void draw() {
         // draw fields
-        // Clear all text boxes
-        for (Field f : fieldComponents().keySet()) {
-            for (CharBox letter : fieldComponents().get(f)) panel().remove(letter.panel());
-        }
+        strip.setRow(Field.TEXT, alg.text(), null);
+        showPattern(alg.shownPattern());
+
+        SearchDisplay.super.draw();
+    }
 
-        // construct text components
-        if (!alg.text().isEmpty()) {
-            if (alg.patt().isEmpty()) {
-                // if there is no pattern, so preprocessing can't have been done, just do chars
-                fieldComponents().put(Field.TEXT, CharBox.singleBoxes(alg.text()));
-            } else {
-                fieldComponents().put(Field.TEXT,
-                        boyerMooreTextBoxes(alg.text(), alg.badCharDict(), alg.patt().length()));
-            }
+    public StepTrace record() {
+        // remember which keyword is lined up against the text at every step
+        StepTrace recorded = new StepTrace();
+        recorded.record(alg, alg::shownPattern);
+        return recorded;
+    }
+
+    public void redraw() {
+        // the keyword lined up against the text can change on any step
+        int shown = trace.detail(trace.position());
+        if (!alg.patterns().isEmpty() && !alg.patterns().get(shown).contentEquals(strip.chars(Field.PATT)))
+            showPattern(shown);
+
+        SearchDisplay.super.redraw();
+    }
+
+    /**
+     * Show a keyword over its failure table
+     */
+    private void showPattern(int pattId) {
+        if (alg.patterns().isEmpty()) {
+            strip.setRow(Field.PATT, "", null);
+            return;
         }
+        int[] failureTable = alg.failureTable(pattId);
+        strip.setRow(Field.PATT, alg.patterns().get(pattId), i -> failureTable[i]);
+    }
+}
 
-        // construct pattern components
-        if (alg().patt().isEmpty()) fieldComponents().put(Field.PATT, new ArrayList<>());
-        else fieldComponents().put(Field.PATT, boyerMoorePattBoxes(alg.patt(), alg.goodSuffixTable()));
+record AdaptiveDisplay(CharStrip strip, JPanel panel, AdaptiveSearch alg, StepTrace trace, JLabel choiceLabel)
+        implements SearchDisplay {
+    AdaptiveDisplay() {
+        this(new CharStrip(), new JPanel(new BorderLayout()), new AdaptiveSearch(), new StepTrace(), new JLabel());
+
+        panel.add(strip, BorderLayout.CENTER);
+
+        // the chosen engine is shown underneath both fields
+        panel.add(choiceLabel, BorderLayout.SOUTH);
+    }
+
+    public void draw() {
+        // draw fields
+        // the engines all show different tables, so just show the characters
+        strip.setRow(Field.TEXT, alg.text(), null);
+        strip.setRow(Field.PATT, alg.patt(), null);
+
+        choiceLabel.setText(alg.patt().isEmpty() ? "" : "Using " + switch (alg.choice()) {
+            case SHORT_PATTERN -> "short pattern search";
+            case KMP -> "Knuth-Morris-Pratt";
+            case BOYER_MOORE -> "Boyer-Moore";
+        });
 
         SearchDisplay.super.draw();
     }
+}
 
-    public void step() {
-        // iterate algorithm, MatchInfo gives us information about the state of the character match
-        SearchAlgorithm.MatchInfo match = alg.step();
+record ShiftOrDisplay(CharStrip strip, JPanel panel, ShiftOr alg, StepTrace trace) implements SearchDisplay {
+    ShiftOrDisplay() {
+        this(new CharStrip(), new JPanel(new BorderLayout()), new ShiftOr(), new StepTrace());
 
-        draw();
+        panel.add(strip, BorderLayout.CENTER);
+    }
 
-        Color col = CharBox.DEFAULT_COL();
-        int startInd = 0;
-        int endInd = 0;
-
-        switch (alg.state()) {
-            case IN_PROGRESS -> {
-                colourMatchedChar(match, fieldComponents);
-                return;
-            }
-            case NO_MATCH -> { // no match exists in the text
-                col = CharBox.MISMATCH_COL();
-                endInd = alg.text().length();
-            }
-            case MATCH_FOUND -> { // match found!
-                col = CharBox.MATCH_COL();
-                startInd = match.textIndex();
-                endInd = startInd + alg.patt().length();
-            }
-        }
+    public void draw() {
+        // draw fields
+        strip.setRow(Field.TEXT, alg.text(), null);
 
-        for (CharBox c : Stream.concat(
-                fieldComponents.get(Field.PATT).stream(),
-                fieldComponents.get(Field.TEXT).subList(startInd, endInd).stream()).toList()) {
-            c.setColor(col);
-        }
+        // show the pattern over its bit of the state vector at the position shown, worked out from the
+        // text and pattern as drawn, since the algorithm may be given new ones while the row is painted
+        CharSequence text = alg.text();
+        String patt = alg.patt();
+        strip.setRow(Field.PATT, patt, i -> bit(text, patt, i));
 
-        panel.repaint();  // update colour
+        SearchDisplay.super.draw();
     }
 
-    static List<? extends CharBox> boyerMooreTextBoxes(String s, Map<Character, Integer> badChar, int defVal) {
-        return new ArrayList<>(){{
-            for (int i = 0; i < s.length(); i ++)
-                add(new CharSubscript(s.charAt(i), badChar.getOrDefault(s.charAt(i), defVal)));
-        }};
+    public void redraw() {
+        // every bit of the state vector can change on a step
+        strip.refresh(Field.PATT);
+
+        SearchDisplay.super.redraw();
     }
 
-    static List<? extends CharBox> boyerMoorePattBoxes(String s, int[] goodSuffix) {
-        return new ArrayList<>(){{
-            for (int i = 0; i < s.length(); i ++)
-                add(new CharSubscript(s.charAt(i), goodSuffix[i]));
-        }};
+    /**
+     * Bit i of the state vector at the position shown, worked out rather than recorded at every step:
+     * it is 0 exactly when the last i + 1 characters read equal the first i + 1 characters of the pattern
+     */
+    private int bit(CharSequence text, String patt, int i) {
+        int position = trace.position();
+        int read = position == 0 ? 0 : trace.matchInfo(position - 1).textIndex() + 1;
+        if (read < i + 1) return 1;
+        for (int j = 0; j <= i; j ++)
+            if (text.charAt(read - 1 - i + j) != patt.charAt(j)) return 1;
+        return 0;
     }
 }
\ No newline at end of file
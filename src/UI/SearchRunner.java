@@ -0,0 +1,172 @@
+package UI;
+
+import Algorithm.StepTrace;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs searches for the UI off the event dispatch thread, so that the window stays responsive however
+ * large the text and pattern are.
+ * <br>Loading gives a display's algorithm new input and records the search on a virtual thread, one load
+ * at a time so the algorithm is never used by two threads. Newer input cancels any load in progress.
+ * <br>Playing moves through a recorded search at a number of steps per second, from a virtual thread
+ * that publishes the position to show once a frame. When the EDT falls behind, the positions published
+ * in the meantime are coalesced and only the latest is shown.
+ * <br>Every method must be called on the EDT.
+ */
+final class SearchRunner {
+    private final long frameNanos;
+
+    private final ExecutorService loader =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("search-loader").factory());
+    private Future<?> loading = CompletableFuture.completedFuture(null);
+    private int loads = 0;        // number of loads started, to recognise the latest
+    private boolean loaded = true;  // whether the latest load is being shown
+
+    private Thread player = null;  // thread playing the search, or null if not playing
+    private volatile int stepsPerSecond = 1;
+
+    /**
+     * @param framesPerSecond how many times a second to show a new position while playing
+     */
+    SearchRunner(int framesPerSecond) {
+        if (framesPerSecond < 1) throw new IllegalArgumentException("Frame rate must be positive");
+        frameNanos = 1_000_000_000L / framesPerSecond;
+    }
+
+    /**
+     * Give a display new input and record its search in the background, cancelling whatever is running
+     * @param onShown run on the EDT once the display shows the new search, unless it is cancelled first
+     */
+    void load(SearchDisplay display, String text, String patt, Runnable onShown) {
+        stop();
+        loading.cancel(true);
+        loaded = false;
+        int load = ++loads;
+        loading = loader.submit(() -> {
+            StepTrace recorded;
+            try {
+                recorded = display.prepare(text, patt);
+            } catch (CancellationException e) {
+                return;  // newer input took over
+            } catch (RuntimeException e) {
+                // fail where it would have if the search had been recorded on the EDT
+                SwingUtilities.invokeLater(() -> { throw e; });
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (load != loads) return;
+                display.show(recorded);
+                loaded = true;
+                onShown.run();
+            });
+        });
+    }
+
+    /**
+     * @return whether the latest input is shown, so its search can be moved through
+     */
+    boolean loaded() {
+        return loaded;
+    }
+
+    /**
+     * @param stepsPerSecond how fast to play, which takes effect straight away if playing
+     */
+    void setSpeed(int stepsPerSecond) {
+        if (stepsPerSecond < 1) throw new IllegalArgumentException("Speed must be positive");
+        this.stepsPerSecond = stepsPerSecond;
+    }
+
+    /**
+     * Play a recorded search from the position shown to its end
+     * @param trace the search being shown
+     * @param seek shows a position, on the EDT
+     * @param onEnd run on the EDT when the end is reached, unless stopped first
+     */
+    void play(StepTrace trace, IntConsumer seek, Runnable onEnd) {
+        if (!loaded) throw new IllegalStateException("Nothing to play until the latest input is shown");
+        stop();
+        player = Thread.ofVirtual().name("search-player")
+                .start(new Playback(trace.position(), trace.size(), seek, onEnd));
+    }
+
+    /**
+     * One play through a search, from the thread playing it to the EDT
+     */
+    private final class Playback implements Runnable {
+        private final int from, size;
+        private final IntConsumer seek;
+        private final Runnable onEnd;
+        private final AtomicInteger published = new AtomicInteger();  // latest position to show
+        private final AtomicBoolean scheduled = new AtomicBoolean();  // whether the EDT will show it
+
+        Playback(int from, int size, IntConsumer seek, Runnable onEnd) {
+            this.from = from;
+            this.size = size;
+            this.seek = seek;
+            this.onEnd = onEnd;
+        }
+
+        @Override
+        public void run() {
+            double position = from;
+            long last = System.nanoTime();
+            try {
+                while (position < size) {
+                    Thread.sleep(frameNanos / 1_000_000, (int) (frameNanos % 1_000_000));
+                    long now = System.nanoTime();
+                    position = Math.min(size, position + (now - last) * 1e-9 * stepsPerSecond);
+                    last = now;
+                    publish((int) position);
+                }
+            } catch (InterruptedException e) {
+                // stopped
+            }
+        }
+
+        /**
+         * Hand a position to the EDT, unless it already has one waiting to be shown, in which case that
+         * one is replaced
+         */
+        private void publish(int position) {
+            Thread thread = Thread.currentThread();
+            published.set(position);
+            if (scheduled.getAndSet(true)) return;
+            SwingUtilities.invokeLater(() -> {
+                scheduled.set(false);
+                if (player != thread) return;  // stopped since
+                int latest = published.get();
+                seek.accept(latest);
+                if (latest == size) {
+                    player = null;
+                    onEnd.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return whether a search is playing
+     */
+    boolean playing() {
+        return player != null;
+    }
+
+    /**
+     * Stop playing, leaving the position shown where it is
+     */
+    void stop() {
+        if (player == null) return;
+        player.interrupt();
+        player = null;
+    }
+}
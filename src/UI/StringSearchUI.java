@@ -1,18 +1,28 @@
 package UI;
 
+import Algorithm.SearchStats;
+import Algorithm.StepTrace;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.util.Map;
 
 public class StringSearchUI extends JFrame {
     private static final Map<String, SearchDisplay> ALGORITHM_OPTIONS =
             Map.of("Knuth-Morris-Pratt", new KMPDisplay(),
-                    "Boyer-Moore", new BoyerMooreDisplay());
+                    "Boyer-Moore", new BoyerMooreDisplay(),
+                    "Aho-Corasick", new AhoCorasickDisplay(),
+                    "Shift-Or", new ShiftOrDisplay(),
+                    "Auto", new AdaptiveDisplay());
+    private static final int FRAMES_PER_SECOND = 30;  // while playing
 
     // top level components
     private final ControlPanel control;  // user input panel
     private final JPanel cardPanel;  // panel using CardLayout switches display depending on algorithm
+    private final SearchRunner runner = new SearchRunner(FRAMES_PER_SECOND);  // runs searches off the EDT
 
     public StringSearchUI() {
         setTitle("String Search");
@@ -22,6 +32,9 @@ public class StringSearchUI extends JFrame {
         // generate components
         control = new ControlPanel(ALGORITHM_OPTIONS.keySet().toArray(new String[0]));
 
+        // collect statistics for every algorithm, to show why a search takes the steps it does
+        for (SearchDisplay d : ALGORITHM_OPTIONS.values()) d.alg().setStats(new SearchStats());
+
         // set up card panel
         cardPanel = new JPanel(new CardLayout());
         // populate with display options for each algorithm
@@ -29,16 +42,29 @@ public class StringSearchUI extends JFrame {
         ((CardLayout)cardPanel.getLayout()).show(cardPanel, (String)control.algSelector.getSelectedItem());
 
         // add listeners
-        control.text.addActionListener((e) -> updateString(control.text.getText(), SearchDisplay.Field.TEXT));
-        control.patt.addActionListener((e) -> updateString(control.patt.getText(), SearchDisplay.Field.PATT));
-        control.stepButton.addActionListener((e) -> step());
+        // every edit starts the search over, cancelling whatever the last one was still doing
+        DocumentListener edited = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { load(); }
+            public void removeUpdate(DocumentEvent e) { load(); }
+            public void changedUpdate(DocumentEvent e) { load(); }
+        };
+        control.text.getDocument().addDocumentListener(edited);
+        control.patt.getDocument().addDocumentListener(edited);
+        control.stepButton.addActionListener((e) -> scrub(display().trace().position() + 1));
+        control.backButton.addActionListener((e) -> scrub(display().trace().position() - 1));
+        control.stepSlider.addChangeListener((e) -> scrub(control.stepSlider.getValue()));
+        control.playButton.addActionListener((e) -> {
+            if (control.playButton.isSelected()) play();
+            else runner.stop();
+        });
+        control.speed.addChangeListener((e) -> runner.setSpeed((Integer) control.speed.getValue()));
+        runner.setSpeed((Integer) control.speed.getValue());
         control.algSelector.addActionListener((e) -> {
             // show new selected display on cardPanel
             ((CardLayout)cardPanel.getLayout()).show(cardPanel, (String)control.algSelector.getSelectedItem());
 
             // update new display's fields with whatever text the user has input
-            updateString(control.text.getText(), SearchDisplay.Field.TEXT);
-            updateString(control.patt.getText(), SearchDisplay.Field.PATT);
+            load();
 
             display().panel().repaint(); // repaint display
         });
@@ -63,24 +89,53 @@ public class StringSearchUI extends JFrame {
     }
 
     /**
-     * Update the state of a specific field of the current display
-     * @param s string value to update to
-     * @param field field to overwrite
+     * Start the search over in the background for whatever text and pattern the user has input,
+     * leaving the step controls disabled until it has been recorded all the way through
      */
-    private void updateString(String s, SearchDisplay.Field field) {
-        display().updateString(s, field);
-        control.setAlgorithmControlsEnabled(display().ready());
+    private void load() {
+        control.playButton.setSelected(false);
+        control.showPosition(0, 0);
+        SearchDisplay display = display();
+        runner.load(display, control.text.getText(), control.patt.getText(), () -> {
+            control.showPosition(0, display.trace().size());
+            control.showStats(display.alg().stats());
+            revalidate();
+        });
+    }
 
-        revalidate();
+    /**
+     * Play the search from the step shown, or from the start if it is at the end
+     */
+    private void play() {
+        StepTrace trace = display().trace();
+        if (!runner.loaded() || trace.size() == 0) {
+            control.playButton.setSelected(false);
+            return;
+        }
+        if (trace.position() == trace.size()) seek(0);
+        runner.play(trace, this::seek, () -> control.playButton.setSelected(false));
     }
 
     /**
-     * Take one step in the algorithm
+     * Show the search after a number of steps chosen by the user, which stops it playing
+     * @param position number of steps taken
      */
-    private void step() {
-        display().step();
-        // can do more only if the state is ready to continue
-        control.setAlgorithmControlsEnabled(display().ready());
+    private void scrub(int position) {
+        if (!runner.loaded() || position == display().trace().position()) return;
+        runner.stop();
+        control.playButton.setSelected(false);
+        seek(position);
+    }
+
+    /**
+     * Show the search after some number of steps
+     * @param position number of steps taken
+     */
+    private void seek(int position) {
+        StepTrace trace = display().trace();
+        if (position == trace.position() || position < 0 || position > trace.size()) return;
+        display().seek(position);
+        control.showPosition(position, trace.size());
     }
 
     public static void main(String[] args) {
@@ -95,11 +150,21 @@ class ControlPanel extends JPanel {
     protected final JTextField text;
     protected final JTextField patt;
     protected final JButton stepButton;
+    protected final JButton backButton;
+    protected final JSlider stepSlider;
+    protected final JToggleButton playButton;
+    protected final JSpinner speed;  // steps per second while playing
     protected final JComboBox<String> algSelector;
+    protected final JLabel statsLabel;
 
     public ControlPanel(String[] algorithmOptions) {
         stepButton = new JButton("Step");
+        backButton = new JButton("Back");
+        stepSlider = new JSlider(0, 0, 0);
+        playButton = new JToggleButton("Play");
+        speed = new JSpinner(new SpinnerNumberModel(10, 1, 1_000_000, 10));
         algSelector = new JComboBox<>(algorithmOptions);
+        statsLabel = new JLabel();
 
         // (source) text field and label
         JPanel textPanel = new JPanel(new BorderLayout());
@@ -124,7 +189,13 @@ class ControlPanel extends JPanel {
         // algorithm control panel
         JPanel algorithmControl = new JPanel();
         algorithmControl.add(algSelector);
+        algorithmControl.add(backButton);
+        algorithmControl.add(stepSlider);
         algorithmControl.add(stepButton);
+        algorithmControl.add(playButton);
+        algorithmControl.add(new JLabel("Steps/s"));
+        algorithmControl.add(speed);
+        algorithmControl.add(statsLabel);
 
         // arrange components
         c.weightx = 2;
@@ -137,10 +208,53 @@ class ControlPanel extends JPanel {
         add(algorithmControl, BorderLayout.SOUTH);
         setBorder(new EmptyBorder(5, 5, 5, 5));
 
-        setAlgorithmControlsEnabled(false);
+        showPosition(0, 0);
+    }
+
+    /**
+     * Move the step controls to a position in the recorded search
+     * @param position number of steps taken
+     * @param steps number of steps in the whole search
+     */
+    public void showPosition(int position, int steps) {
+        backButton.setEnabled(position > 0);
+        stepButton.setEnabled(position < steps);
+        playButton.setEnabled(steps > 0);
+        stepSlider.setEnabled(steps > 0);
+        // one change event, for a position already shown
+        stepSlider.getModel().setRangeProperties(position, 0, 0, steps, false);
+        stepSlider.setToolTipText("Step " + position + " of " + steps);
     }
 
-    public void setAlgorithmControlsEnabled(Boolean b) {
-        stepButton.setEnabled(b);
+    /**
+     * Summarise search statistics next to the step button, with the shift length histogram as a tooltip
+     * @param stats statistics to show, or null to show nothing
+     */
+    public void showStats(SearchStats stats) {
+        if (stats == null) {
+            statsLabel.setText("");
+            statsLabel.setToolTipText(null);
+            return;
+        }
+
+        String text = String.format("Comparisons: %d   Shifts: %d   Avg shift: %.1f",
+                stats.comparisons(), stats.shifts(), stats.averageShift());
+        // only Boyer-Moore chooses between rules
+        long badChar = stats.wins(SearchStats.Rule.BAD_CHARACTER);
+        long goodSuffix = stats.wins(SearchStats.Rule.GOOD_SUFFIX);
+        long tie = stats.wins(SearchStats.Rule.TIE);
+        if (badChar + goodSuffix + tie > 0)
+            text += String.format("   Bad char / good suffix / tie: %d / %d / %d", badChar, goodSuffix, tie);
+        statsLabel.setText(text);
+
+        StringBuilder histogram = new StringBuilder("Shift lengths:");
+        long[] buckets = stats.shiftHistogram();
+        for (int b = 0; b < buckets.length; b++) {
+            if (buckets[b] == 0) continue;
+            int low = 1 << b, high = (1 << b + 1) - 1;
+            histogram.append(low == high ? String.format("  %d: %d", low, buckets[b])
+                    : String.format("  %d-%d: %d", low, high, buckets[b]));
+        }
+        statsLabel.setToolTipText(histogram.toString());
     }
 }